@@ -10,9 +10,15 @@ import java.util.*;
 
 import experts.*;
 import helpers.ActionEntry;
+import helpers.AnytimeSearch;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
+import helpers.DeadlineScheduler;
 import helpers.Logger;
+import helpers.Move;
+import helpers.RegretInsertion;
+import helpers.Solution;
+import helpers.TopologyIndex;
 import logist.LogistSettings;
 
 //the list of imports
@@ -49,12 +55,18 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
 
     private static final double TAX = 2;
 
+    // The marginal cost estimate is stable once the best cost drops by less than STABLE_TOLERANCE during
+    // STABLE_WINDOW of the bid time, the shuffle then stops and leaves its time to the opponent estimate
+    private static final double STABLE_TOLERANCE = 0.002;
+    private static final double STABLE_WINDOW = 0.1;
+
     private static final int PHASE1_END = 4;
     private static final int N_EXPECTED_TASK = 5;
     private static final double PHASE_1_SAVINGS_FACTOR = 1;
 	private static final double LAMDA = 1.0;
 
     private Topology topology;
+    private TopologyIndex index;
     private TaskDistribution distribution;
     private Agent agent;
     private Random random;
@@ -77,6 +89,7 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
     private Expert[] experts;
     private Long[] expertsBids;
 
+    // Planner of our bids and plans, which always start from the current solution and never from its store
     private CentralizedPlanning centralizedPlanning;
     private long timeout_bid;
     private long timeout_plan;
@@ -106,7 +119,8 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
 
         // Set basic attributes
         this.topology = topology;
-        
+        this.index = new TopologyIndex(topology);
+
         this.distribution = distribution;
         this.agent = agent;
         this.vehicles = agent.vehicles();
@@ -131,7 +145,7 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
 
         // Initialize centralized planning
         centralizedPlanning = new CentralizedPlanning();
-        centralizedPlanning.setup(this.distribution, this.agent);
+        centralizedPlanning.setup(this.index, this.distribution, this.agent);
 
         // Initializations for Phase 1
         this.nAuctions = 0;
@@ -272,10 +286,13 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
          * SLS from there. (If SHUFFLE = true)
          * We iterate over all vehicles and all possible slots.
          */
+        long time_start = System.currentTimeMillis();
         double costWithNewTask = addingTaskCost(task);
         if (SHUFFLE) {
-            centralizedPlanning.shuffle(vehicles, potentialSolution, timeout_bid / 2);
+            potentialSolution = centralizedPlanning.shuffle(vehicles, potentialSolution, timeout_bid / 2, stableSearch(),
+                    null);
             costWithNewTask = computeCost(potentialSolution, vehicles);
+            potentialCost = costWithNewTask;
         }
         marginalCost = costWithNewTask - currentCost;
 
@@ -287,8 +304,13 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
          */
         double opponentCost = addingTaskCost(task, true);
         if (SHUFFLE) {
-            centralizedPlanning.shuffle(vehicles, potentialOpponentSolution, timeout_bid / 2);
+            // the opponent estimate gets the time left by our own shuffle, minus the time to build the bid
+            long remaining = timeout_bid - DeadlineScheduler.margin(timeout_bid)
+                    - (System.currentTimeMillis() - time_start);
+            potentialOpponentSolution = centralizedPlanning.shuffle(vehicles, potentialOpponentSolution, remaining,
+                    stableSearch(), null);
             opponentCost = computeCost(potentialOpponentSolution, vehicles);
+            potentialOpponentCost = opponentCost;
         }
         double marginalOpponentCost = opponentCost - currentOpponentCost;
 
@@ -362,7 +384,7 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
 
         // Plan
         ActionEntry[] bestSolution =
-                centralizedPlanning.shuffle(this.vehicles, currentSolution, Math.round(timeout_plan * 0.9));    // FIXME secure factor
+                centralizedPlanning.shuffle(this.vehicles, currentSolution, timeout_plan, new AnytimeSearch(), null);
 
         // Get plan from new task set
         List<Plan> plans = centralizedPlanning.planFromSolutionAndTaskSet(bestSolution, this.vehicles, tasks);
@@ -389,49 +411,30 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
      */
     private double addingTaskCost(Task t, boolean opponent) {
 
-        double lowestTotalCostFound = Double.MAX_VALUE;
-        ActionEntry[] bestPlan = null;
         ActionEntry[] current = opponent ? currentOpponentSolution : currentSolution;
+        Solution solution = Solution.fromActions(current, agent.vehicles(), index, t);
+        int task = solution.taskCount() - 1;
 
         // Go over all vehicles
+        Move bestMove = null;
         for (int vId = 0; vId < agent.vehicles().size(); vId++) {
 
-            // Compute number of actions
-            ActionEntry c = current[vId];
-            while (c.next != null) {
-                c = c.next;
-            }
-            int nAction = c.time;
-
             // Compute cost for all possible task insert positions
-            for (int iPickup = 0; iPickup <= nAction; iPickup++) { // FIXME not <= ? Check in centralized planner
-                int iDelivery = iPickup + 1;
-
-                boolean valid = true;
-                boolean sameFound = true;
-
-                while ((valid || sameFound) && iDelivery <= nAction + 1) { // FIXME not <= nAction + 1 Check in centralized planner
-
-                    ActionEntry[] a = ActionEntry.copy(current); // FIXME only copy vehicles
-                    valid = addTask(a[vId], agent.vehicles(), vId, t, iPickup, iDelivery); // FIXME can be done more
-                    // efficiently
-                    if (valid) {
-                        // Compute cost
-                        double cost = computeCost(a, agent.vehicles());
-                        if (cost < lowestTotalCostFound) {
-                            lowestTotalCostFound = cost;
-                            bestPlan = a;
-                        }
-
-                    } else {
-                        valid = sameFound;
-                        sameFound = false;
-                    }
-                    iDelivery++;
-                }
+            Move m = RegretInsertion.cheapestInsertion(solution, task, vId);
+            if (m != null && (bestMove == null || m.delta < bestMove.delta)) {
+                bestMove = m;
             }
         }
 
+        if (bestMove == null) {
+            // the capacity guard of askPrice ensures a vehicle can at least carry the task at the end of its route
+            throw new IllegalStateException("No vehicle can carry task " + t.id);
+        }
+
+        double lowestTotalCostFound = solution.cost() + bestMove.delta;
+        bestMove.applyTo(solution);
+        ActionEntry[] bestPlan = solution.toActions();
+
         if (opponent) {
             potentialOpponentSolution = bestPlan;
             potentialOpponentCost = lowestTotalCostFound;
@@ -452,43 +455,12 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
         return lowestTotalCostFound;
     }
 
+
     /**
-     * Add task to vehicle vid.
-     *
-     * @return true if the change is valid
+     * @return a handle stopping a bid shuffle once its best cost is stable
      */
-    private boolean addTask(ActionEntry a, List<Vehicle> vehicles, int vId, Task task, int iPickup, int iDelivery) {
-
-        ActionEntry newPickup = new ActionEntry(task, true);
-        ActionEntry newDelivery = new ActionEntry(task, false);
-        // Note that the task here does not have correct reward yet, so it will have to be fixed later
-
-        ActionEntry current = a;
-
-        // Find correct index for pickup
-        for (int p = iPickup; p > 0; p--) {
-            if (current == null) {
-                throw new Error("Pickup moment is not legal");
-            }
-            current = current.next;
-        }
-
-        // Add pickup entry
-        current.add(newPickup);
-
-        // Find correct index for delivery
-        for (int d = iDelivery - iPickup; d > 0; d--) { // Need to be careful here
-            if (current == null) {
-                throw new Error("Delivery moment is not legal");
-            }
-            current = current.next;
-        }
-
-        // Add delivery entry
-        current.add(newDelivery);
-
-        // Update time and load
-        return a.updateTimeAndLoad(vehicles.get(vId).capacity());
+    private AnytimeSearch stableSearch() {
+        return new AnytimeSearch(null, STABLE_TOLERANCE, Math.round(timeout_bid * STABLE_WINDOW));
     }
 
     /**
@@ -502,13 +474,21 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
         double sum = 0;
         int i = 0;
         for (ActionEntry a : actions) {
-            double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
-            sum += cost;
+            sum += vehicleCost(a, vehicles.get(i));
             i++;
         }
         return sum;
     }
 
+    /**
+     * @param a the header of the schedule of vehicle v
+     * @param v the vehicle
+     * @return the cost of the schedule
+     */
+    private double vehicleCost(ActionEntry a, Vehicle v) {
+        return a.cost(v.homeCity(), index) * v.costPerKm();
+    }
+
     /**
      * Phase 1 Helper function. Tries to mathematically approximate the amount of saving that can be made.
      * (following round only)
@@ -525,15 +505,15 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
         for (Vehicle v : vehicles) {
             double sumOfMoveSavings = 0;
 
-            List<City> path = task.pickupCity.pathTo(task.deliveryCity);
-            City currentCity = task.pickupCity;
+            int currentCity = task.pickupCity.id;
 
-            for (City nextCity : path) {
+            for (int nextCity = currentCity; nextCity != task.deliveryCity.id;) {
+                nextCity = index.nextHop(nextCity, task.deliveryCity.id);
 
                 // For all moves on shortest path for task t
                 double moveSavings = 0;
 
-                moveSavings += currentCity.distanceTo(nextCity) * v.costPerKm();
+                moveSavings += index.distance(currentCity, nextCity) * v.costPerKm();
 
                 // Get likelihood of savings
                 double likelihood = 0;
@@ -542,12 +522,11 @@ public class AuctionMultiplicativeWeightUpdate implements AuctionBehavior {
                     Task t = e.getKey();
 
                     // Check if t has edge in common
-                    List<City> tPath = t.pickupCity.pathTo(t.deliveryCity);
-                    tPath.add(t.pickupCity);
-
                     // Note that since we are at the very beginning we do not take already taken tasks into account
                     // This could be a noteworthy improvement, if we want to extend / mix Phase 1 with Phase 2
-                    if (t.weight - v.capacity() < 0 && tPath.contains(nextCity) && tPath.contains(currentCity)) {
+                    if (t.weight - v.capacity() < 0
+                            && index.pathContains(t.pickupCity, t.deliveryCity, index.city(nextCity))
+                            && index.pathContains(t.pickupCity, t.deliveryCity, index.city(currentCity))) {
 
                         // We know the pickup cities are uniformly distributed.
                         likelihood += (1.0 / topology.cities().size()) * e.getValue();
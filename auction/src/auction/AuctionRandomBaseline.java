@@ -5,6 +5,7 @@ import helpers.ActionEntry;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
 import helpers.Logger;
+import helpers.TopologyIndex;
 import logist.LogistSettings;
 import logist.agent.Agent;
 import logist.behavior.AuctionBehavior;
@@ -37,6 +38,7 @@ public class AuctionRandomBaseline implements AuctionBehavior {
     public static final boolean LOG = false;
 
     private Topology topology;
+    private TopologyIndex index;
     private TaskDistribution distribution;
     private Agent agent;
     private Random random;
@@ -62,6 +64,7 @@ public class AuctionRandomBaseline implements AuctionBehavior {
                       Agent agent) {
 
         this.topology = topology;
+        this.index = new TopologyIndex(topology);
         this.distribution = distribution;
         this.agent = agent;
         this.vehicles = agent.vehicles();
@@ -97,7 +100,7 @@ public class AuctionRandomBaseline implements AuctionBehavior {
         centralizedPlanning = new CentralizedPlanning();
 
         // Setup
-        centralizedPlanning.setup(distribution, agent);
+        centralizedPlanning.setup(index, distribution, agent);
 
         // Create log file
         if (LOG) {
@@ -331,7 +334,7 @@ public class AuctionRandomBaseline implements AuctionBehavior {
         int i = 0;
         double max = 0;
         for (ActionEntry a : actions) {
-            double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
+            double cost = a.cost(vehicles.get(i).homeCity(), index) * vehicles.get(i).costPerKm();
             sum += cost;
             if (max < cost) {
                 max = cost;
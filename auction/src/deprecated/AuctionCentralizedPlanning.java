@@ -22,6 +22,7 @@ import java.util.Random;
 import helpers.ActionEntry;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
+import helpers.TopologyIndex;
 
 /**
  * A simple agent that:
@@ -50,6 +51,7 @@ public class AuctionCentralizedPlanning implements AuctionBehavior {
     private TaskDistribution distribution;
     private Agent agent;
     private Random random;
+    private CentralizedPlanning centralizedPlanning;
     private List<Vehicle> vehicles;
     private int maxVehicleCapacity;
 
@@ -81,6 +83,10 @@ public class AuctionCentralizedPlanning implements AuctionBehavior {
         long seed = -9019554669489983951L * this.hashCode() * agent.id();
         this.random = new Random(seed);
 
+        // Create the centralized planner once, it keeps its warm starts between plannings
+        this.centralizedPlanning = new CentralizedPlanning();
+        centralizedPlanning.setup(new TopologyIndex(topology), distribution, agent);
+
         // Init Action entries
         this.currentSolution = new ActionEntry[agent.vehicles().size()];
         for (int i = 0; i < agent.vehicles().size(); i++) {
@@ -198,12 +204,6 @@ public class AuctionCentralizedPlanning implements AuctionBehavior {
 
     private List<Plan> planCentralized(TaskSet tasks) {
 
-        // Create instance of centralized planner
-        CentralizedPlanning centralizedPlanning = new CentralizedPlanning();
-
-        // Setup
-        centralizedPlanning.setup(this.distribution, this.agent);
-
         // Plan
 
         return  centralizedPlanning.plan(vehicles,tasks);
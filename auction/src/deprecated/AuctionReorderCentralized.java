@@ -22,6 +22,7 @@ import java.util.Random;
 import helpers.ActionEntry;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
+import helpers.TopologyIndex;
 
 /**
  * A simple agent that:
@@ -107,7 +108,7 @@ public class AuctionReorderCentralized implements AuctionBehavior {
         centralizedPlanning = new CentralizedPlanning();
 
         // Setup
-        centralizedPlanning.setup(distribution, agent);
+        centralizedPlanning.setup(new TopologyIndex(topology), distribution, agent);
 
         // Create log file
         if (LOG) {
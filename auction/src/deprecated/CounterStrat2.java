@@ -17,6 +17,7 @@ import java.util.*;
 import helpers.ActionEntry;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
+import helpers.TopologyIndex;
 
 /**
  * A very simple auction agent that assigns all tasks to its first vehicles and
@@ -46,6 +47,7 @@ public class CounterStrat2 implements AuctionBehavior {
 	private TaskDistribution distribution;
 	private Agent agent;
 	private Random random;
+	private CentralizedPlanning centralizedPlanning;
 	private List<Vehicle> vehicles;
 	private int maxVehicleCapacity;
 
@@ -86,6 +88,10 @@ public class CounterStrat2 implements AuctionBehavior {
 		long seed = -9019554669489983951L * this.hashCode() * agent.id();
 		this.random = new Random(seed);
 
+		// Create the centralized planner once, it keeps its warm starts between plannings
+		this.centralizedPlanning = new CentralizedPlanning();
+		centralizedPlanning.setup(new TopologyIndex(topology), distribution, agent);
+
 		// Init Action entries
 		this.currentSolution = new ActionEntry[agent.vehicles().size()];
 		for (int i = 0; i < agent.vehicles().size(); i++) {
@@ -241,12 +247,6 @@ public class CounterStrat2 implements AuctionBehavior {
 
 	private List<Plan> planCentralized(TaskSet tasks) {
 
-		// Create instance of centralized planner
-		CentralizedPlanning centralizedPlanning = new CentralizedPlanning();
-
-		// Setup
-		centralizedPlanning.setup(this.distribution, this.agent);
-
 		// Plan
 		List<Plan> plans = centralizedPlanning.plan(this.vehicles, tasks);
 
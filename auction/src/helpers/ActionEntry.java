@@ -41,12 +41,38 @@ public class ActionEntry {
 
 	}
 
+	/**
+	 * @param lastPos the city the vehicle is in before this action
+	 * @return the distance travelled from lastPos through this action and all the following ones
+	 */
 	public double cost(City lastPos) {
-		if (task == null) {
-			return next == null ? 0 : next.cost(lastPos);
+		double cost = 0;
+		for (ActionEntry a = this; a != null; a = a.next) {
+			if (a.task != null) {
+				City nextCity = a.pickup ? a.task.pickupCity : a.task.deliveryCity;
+				cost += lastPos.distanceTo(nextCity);
+				lastPos = nextCity;
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * @param lastPos the city the vehicle is in before this action
+	 * @param index   the distances of the topology
+	 * @return the distance travelled from lastPos through this action and all the following ones
+	 */
+	public double cost(City lastPos, TopologyIndex index) {
+		double cost = 0;
+		int last = lastPos.id;
+		for (ActionEntry a = this; a != null; a = a.next) {
+			if (a.task != null) {
+				int nextCity = a.pickup ? a.task.pickupCity.id : a.task.deliveryCity.id;
+				cost += index.distance(last, nextCity);
+				last = nextCity;
+			}
 		}
-		City nextCity = pickup ? task.pickupCity : task.deliveryCity;
-		return lastPos.distanceTo(nextCity) + (next == null ? 0 : next.cost(nextCity));
+		return cost;
 	}
 
 	public void remove() {
@@ -65,51 +91,58 @@ public class ActionEntry {
 	 * @return true if the schedule is valid, false otherwise
 	 */
 	public boolean updateTimeAndLoad(int maxLoad) {
-		if (load > maxLoad) {
-			return false;
-		}
-		if (next != null) {
-			next.time = time + 1;
+		ActionEntry a = this;
+		while (a.next != null) {
+			if (a.load > maxLoad) {
+				return false;
+			}
+			ActionEntry n = a.next;
+			n.time = a.time + 1;
 
-			if (next.pickup) {
-				next.load = load + next.task.weight;
+			if (n.pickup) {
+				n.load = a.load + n.task.weight;
 			} else {
-				next.load = load - next.task.weight;
+				n.load = a.load - n.task.weight;
 			}
-			return next.updateTimeAndLoad(maxLoad);
+			a = n;
 		}
-		return load == 0;
+		return a.load <= maxLoad && a.load == 0;
 	}
 
-	private ActionEntry clone(ActionEntry prev) {
-		ActionEntry a = new ActionEntry(task, pickup);
-		a.prev = prev;
-		a.time = time;
-		a.vehicleId = vehicleId;
-		if (next != null) {
-			a.next = next.clone(a);
+	/**
+	 * Copy this action and all the following ones
+	 */
+	@Override
+	public ActionEntry clone() {
+		ActionEntry head = copyOne(this);
+		for (ActionEntry a = next, last = head; a != null; a = a.next) {
+			ActionEntry c = copyOne(a);
+			c.prev = last;
+			last.next = c;
+			last = c;
 		}
-		a.load = load;
-
-		return a;
+		return head;
 	}
 
-	@Override
-	public ActionEntry clone() {
-		return clone(null);
+	private static ActionEntry copyOne(ActionEntry a) {
+		ActionEntry c = new ActionEntry(a.task, a.pickup);
+		c.time = a.time;
+		c.vehicleId = a.vehicleId;
+		c.load = a.load;
+		return c;
 	}
 
 	public String toString() {
-		String s = "->";
-		if (pickup) {
-			s = s + "P(" + task.id + " reward: " + task.reward + ")";
-		} else if (task != null) {
-			s = s + "D(" + task.id + " reward: " + task.reward + ")";
-		}
-		if (next != null) {
-			s += next.toString();
+		StringBuilder s = new StringBuilder();
+		for (ActionEntry a = this; a != null; a = a.next) {
+			s.append("->");
+			if (a.pickup) {
+				s.append("P(").append(a.task.id).append(" reward: ").append(a.task.reward).append(")");
+			} else if (a.task != null) {
+				s.append("D(").append(a.task.id).append(" reward: ").append(a.task.reward).append(")");
+			}
 		}
-		return s;
+		return s.toString();
 	}
 
 	public static ActionEntry[] copy(ActionEntry[] actions) {
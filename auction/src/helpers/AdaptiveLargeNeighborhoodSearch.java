@@ -0,0 +1,168 @@
+package helpers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Adaptive large neighborhood search: at each iteration a destroy operator removes several tasks and a repair
+ * operator inserts them back. The new solution is accepted with the simulated annealing criterion.
+ * <p>
+ * The operators are drawn with a probability proportional to their weight. Every SEGMENT iterations the weights move
+ * towards the average score of the operators over the segment, an operator scoring when its solution is a new best,
+ * an improvement or an accepted one. Only the solutions not accepted before score, which are recognized by their
+ * hash. The weights start equal for each new search, which must not be shared between threads.
+ */
+public class AdaptiveLargeNeighborhoodSearch {
+
+	// Scores of the operators for each outcome of an iteration
+	private static final double SCORE_BEST = 33.;
+	private static final double SCORE_IMPROVED = 9.;
+	private static final double SCORE_ACCEPTED = 13.;
+	// Share of the new weight coming from the scores of the last segment
+	private static final double REACTION = 0.1;
+	private static final int SEGMENT = 100;
+	// Weight under which an operator never falls
+	private static final double MIN_WEIGHT = 0.1;
+
+	// Number of tasks removed at most per iteration, as a share of the tasks and in absolute
+	private static final double MAX_REMOVED_SHARE = 0.4;
+	private static final int MAX_REMOVED = 40;
+
+	// At the start, a solution that much worse than the initial one is accepted with probability one half
+	private static final double STARTING_WORSENING = 0.05;
+	private static final double FINAL_TEMPERATURE_RATIO = 0.002;
+
+	// The hashes of the last accepted solutions are remembered in 4 * 2^VISITED_BITS entries
+	private static final int VISITED_BITS = 10;
+
+	private final Removal[] removals;
+	private final Construction[] repairs;
+
+	private final double[] removalWeights;
+	private final double[] repairWeights;
+	private final double[] removalScores;
+	private final double[] repairScores;
+	private final int[] removalUses;
+	private final int[] repairUses;
+	private final CostCache visited = new CostCache(VISITED_BITS);
+
+	/**
+	 * @param index the distances of the topology
+	 */
+	public AdaptiveLargeNeighborhoodSearch(TopologyIndex index) {
+		this.removals = new Removal[] { new RandomRemoval(), new WorstRemoval(), new ShawRemoval(index),
+				new RouteRemoval() };
+		this.repairs = new Construction[] { new RegretInsertion(1), new RegretInsertion(2), new RegretInsertion(3) };
+
+		this.removalWeights = new double[removals.length];
+		this.repairWeights = new double[repairs.length];
+		Arrays.fill(removalWeights, 1.);
+		Arrays.fill(repairWeights, 1.);
+		this.removalScores = new double[removals.length];
+		this.repairScores = new double[repairs.length];
+		this.removalUses = new int[removals.length];
+		this.repairUses = new int[repairs.length];
+	}
+
+	/**
+	 * Search a cheaper solution until the deadline
+	 *
+	 * @param start     the solution to start from, containing at least one task, left untouched
+	 * @param random    the random generator of the search
+	 * @param scheduler the deadline of the search
+	 * @return the best solution found
+	 */
+	public Solution search(Solution start, Random random, DeadlineScheduler scheduler) {
+		Solution current = start.copy();
+		double currentCost = current.cost();
+		Solution best = current.copy();
+		double bestCost = currentCost;
+
+		int maxRemoved = Math.max(1, Math.min(MAX_REMOVED, (int) (current.taskCount() * MAX_REMOVED_SHARE)));
+		double startingTemperature = STARTING_WORSENING * currentCost / Math.log(2);
+
+		int iteration = 0;
+		visited.clear();
+		visited.put(current.hash(), currentCost);
+		while (scheduler.next()) {
+			int d = select(removalWeights, random);
+			int r = select(repairWeights, random);
+
+			// destroy and repair, the journal keeps the solution of the previous iteration
+			current.commit();
+			removals[d].remove(current, 1 + random.nextInt(maxRemoved), random);
+			if (!repairs[r].build(current, scheduler.deadlineMillis())) {
+				current.rollback();
+				break;
+			}
+
+			double temperature = startingTemperature * Math.pow(FINAL_TEMPERATURE_RATIO, scheduler.progress());
+			double newCost = current.cost();
+			long hash = current.hash();
+			boolean known = visited.contains(hash);
+			boolean accepted = true;
+			double score = 0.;
+			if (newCost < bestCost) {
+				score = SCORE_BEST;
+				bestCost = newCost;
+				best = current.copy();
+				currentCost = newCost;
+				scheduler.improved(best, newCost);
+			} else if (newCost < currentCost) {
+				score = known ? 0. : SCORE_IMPROVED;
+				currentCost = newCost;
+			} else if (random.nextDouble() < Math.exp((currentCost - newCost) / temperature)) {
+				score = known || newCost <= currentCost ? 0. : SCORE_ACCEPTED;
+				currentCost = newCost;
+			} else {
+				current.rollback();
+				accepted = false;
+			}
+			if (accepted && !known) {
+				visited.put(hash, newCost);
+			}
+
+			removalScores[d] += score;
+			removalUses[d]++;
+			repairScores[r] += score;
+			repairUses[r]++;
+			if (++iteration % SEGMENT == 0) {
+				updateWeights(removalWeights, removalScores, removalUses);
+				updateWeights(repairWeights, repairScores, repairUses);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the index of an operator drawn with a probability proportional to its weight
+	 */
+	private static int select(double[] weights, Random random) {
+		double sum = 0;
+		for (double w : weights) {
+			sum += w;
+		}
+		double x = random.nextDouble() * sum;
+		for (int i = 0; i < weights.length - 1; i++) {
+			x -= weights[i];
+			if (x < 0) {
+				return i;
+			}
+		}
+		return weights.length - 1;
+	}
+
+	/**
+	 * Move the weights towards the average score of the last segment and reset the scores
+	 */
+	private static void updateWeights(double[] weights, double[] scores, int[] uses) {
+		for (int i = 0; i < weights.length; i++) {
+			if (uses[i] > 0) {
+				weights[i] = weights[i] * (1 - REACTION) + REACTION * scores[i] / uses[i];
+			}
+			weights[i] = Math.max(weights[i], MIN_WEIGHT);
+			scores[i] = 0;
+			uses[i] = 0;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Self-tuning cooling and operator mix of a simulated annealing chain.
+ * <p>
+ * The starting temperature is calibrated on the cost increases of random moves of the starting solution, so that
+ * INITIAL_ACCEPTANCE of them would be accepted, which follows the cost per kilometer and the size of the topology. The
+ * target acceptance ratio of the worsening moves then decays geometrically to FINAL_ACCEPTANCE at the deadline. Every
+ * WINDOW worsening moves the temperature is corrected from the measured ratio: a move being accepted with probability
+ * exp(-delta / T), the temperature scales with 1 / -ln(ratio).
+ * <p>
+ * The random operators are drawn with a probability following their share. Every SEGMENT draws the shares move
+ * towards the rates of improvement of the operators over the segment. A controller must not be shared between
+ * threads.
+ */
+public class AnnealingController {
+
+	// Acceptance ratio of the worsening moves at the start and at the deadline
+	private static final double INITIAL_ACCEPTANCE = 0.5;
+	private static final double FINAL_ACCEPTANCE = 0.002;
+	// Number of worsening moves between two corrections of the temperature, and largest factor of a correction
+	private static final int WINDOW = 200;
+	private static final double MAX_CORRECTION = 2.;
+
+	// Share of the new operator shares coming from the last segment, and share under which an operator never falls
+	private static final double REACTION = 0.2;
+	private static final int SEGMENT = 1000;
+	private static final double MIN_SHARE = 0.05;
+
+	private double temperature;
+	private double sumIncreases;
+	private int increases;
+	private int proposed;
+	private int accepted;
+
+	private final double[] shares;
+	private final int[] uses;
+	private final int[] improvements;
+	private final double[] rates;
+	private int draws;
+
+	/**
+	 * @param shares the initial probabilities of the random operators, summing to one
+	 */
+	public AnnealingController(double[] shares) {
+		this.shares = shares.clone();
+		this.uses = new int[shares.length];
+		this.improvements = new int[shares.length];
+		this.rates = new double[shares.length];
+	}
+
+	/**
+	 * Sample the cost change of a random move of the starting solution
+	 */
+	public void sample(double delta) {
+		if (delta > 0) {
+			sumIncreases += delta;
+			increases++;
+		}
+	}
+
+	/**
+	 * Calibrate the starting temperature on the sampled moves
+	 *
+	 * @param factor the factor applied to the calibrated temperature, to diversify the chains of a portfolio
+	 * @return the starting temperature, positive even when no sampled move increased the cost
+	 */
+	public double start(double factor) {
+		double meanIncrease = increases > 0 ? sumIncreases / increases : 1.;
+		temperature = factor * meanIncrease / -Math.log(INITIAL_ACCEPTANCE);
+		return temperature;
+	}
+
+	/**
+	 * @return the current temperature
+	 */
+	public double temperature() {
+		return temperature;
+	}
+
+	/**
+	 * Record the outcome of a worsening move and correct the temperature at the end of a window
+	 *
+	 * @param accepted true if the move was applied
+	 * @param progress the share of the search time elapsed
+	 */
+	public void worsening(boolean accepted, double progress) {
+		proposed++;
+		if (accepted) {
+			this.accepted++;
+		}
+		if (proposed < WINDOW) {
+			return;
+		}
+		double target = INITIAL_ACCEPTANCE * Math.pow(FINAL_ACCEPTANCE / INITIAL_ACCEPTANCE, progress);
+		// never 0 nor 1, whose logarithm would not correct anything
+		double ratio = (this.accepted + 0.5) / (proposed + 1.);
+		double correction = Math.log(ratio) / Math.log(target);
+		temperature *= Math.max(1. / MAX_CORRECTION, Math.min(MAX_CORRECTION, correction));
+		proposed = 0;
+		this.accepted = 0;
+	}
+
+	/**
+	 * @return the acceptance ratio of the worsening moves of the current window
+	 */
+	public double acceptance() {
+		return proposed == 0 ? 0. : (double) accepted / proposed;
+	}
+
+	/**
+	 * @return the index of a random operator drawn with a probability of its share
+	 */
+	public int operator(Random random) {
+		double x = random.nextDouble();
+		for (int i = 0; i < shares.length - 1; i++) {
+			x -= shares[i];
+			if (x < 0) {
+				return i;
+			}
+		}
+		return shares.length - 1;
+	}
+
+	/**
+	 * Record the outcome of a random operator and update the shares at the end of a segment
+	 *
+	 * @param operator the index of the operator
+	 * @param improved true if its move decreased the current cost
+	 */
+	public void reward(int operator, boolean improved) {
+		uses[operator]++;
+		if (improved) {
+			improvements[operator]++;
+		}
+		if (++draws < SEGMENT) {
+			return;
+		}
+
+		double sumRates = 0.;
+		for (int i = 0; i < shares.length; i++) {
+			rates[i] = uses[i] > 0 ? (double) improvements[i] / uses[i] : 0.;
+			sumRates += rates[i];
+		}
+		double sum = 0.;
+		for (int i = 0; i < shares.length; i++) {
+			if (sumRates > 0) {
+				shares[i] = (1 - REACTION) * shares[i] + REACTION * rates[i] / sumRates;
+			}
+			shares[i] = Math.max(shares[i], MIN_SHARE);
+			sum += shares[i];
+			uses[i] = 0;
+			improvements[i] = 0;
+		}
+		for (int i = 0; i < shares.length; i++) {
+			shares[i] /= sum;
+		}
+		draws = 0;
+	}
+}
@@ -0,0 +1,207 @@
+package helpers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Handle on a running shuffle, shared by all its chains.
+ * <p>
+ * The chains publish each new best solution as soon as they find it, so the caller can read the best solution found so
+ * far at any time, follow the improvements with a listener and cancel the shuffle. The shuffle can also stop by itself
+ * once its best cost is stable, or once a chain reaches the target cost given by a lower bound of the optimum.
+ */
+public class AnytimeSearch {
+
+	// Share of the search time elapsed before the stability rule applies
+	private static final double MIN_PROGRESS = 0.5;
+
+	/**
+	 * Listener of the solutions published by a shuffle
+	 */
+	public interface Listener {
+
+		/**
+		 * Called by the thread of the chain that published the solution
+		 *
+		 * @param solution the new best solution
+		 * @param cost     its cost
+		 */
+		void improved(ActionEntry[] solution, double cost);
+	}
+
+	private final AtomicReference<Incumbent> best = new AtomicReference<>();
+	private final Listener listener;
+	private volatile boolean cancelled;
+
+	// the search is stable when its best cost did not drop by tolerance during window nanoseconds
+	private final double tolerance;
+	private final long window;
+	private double stableCost = Double.POSITIVE_INFINITY;
+	private volatile long stableSince;
+	// the search is stopped once a chain finds a solution costing at most target
+	private double target;
+	private volatile boolean reached;
+
+	public AnytimeSearch() {
+		this(null, 0., 0);
+	}
+
+	/**
+	 * @param listener     notified of each published solution, may be null
+	 * @param tolerance    the relative drop of the best cost that counts as an improvement
+	 * @param windowMillis the time in millisecond without improvement after which the search stops, 0 to never stop
+	 */
+	public AnytimeSearch(Listener listener, double tolerance, long windowMillis) {
+		this.listener = listener;
+		this.tolerance = tolerance;
+		this.window = windowMillis * 1_000_000L;
+	}
+
+	/**
+	 * Restart the handle from the solution of a new shuffle
+	 *
+	 * @param start the starting solution, left untouched
+	 */
+	void start(Solution start) {
+		best.set(new Incumbent(start.copy(), start.cost()));
+		synchronized (this) {
+			stableCost = start.cost();
+		}
+		stableSince = System.nanoTime();
+		target(0.);
+	}
+
+	/**
+	 * Stop the search as soon as a solution costs at most target, such as a lower bound of the optimum increased by
+	 * the gap that is accepted
+	 *
+	 * @param cost the target cost
+	 */
+	synchronized void target(double cost) {
+		target = cost;
+		reached = best.get().cost <= cost;
+	}
+
+	/**
+	 * Publish a new best solution of a chain if no chain found a better one in the meantime
+	 *
+	 * @param solution the new best solution of the chain, in its current state, left untouched
+	 * @param cost     its cost
+	 */
+	void improved(Solution solution, double cost) {
+		if (cost < best.get().cost) {
+			publish(solution.copy(), cost);
+		}
+		record(cost);
+	}
+
+	/**
+	 * Record the cost of a new best solution of a chain for the stability and target rules
+	 *
+	 * @param cost the cost of the solution
+	 */
+	private synchronized void record(double cost) {
+		reached |= cost <= target;
+		if (cost < stableCost * (1. - tolerance)) {
+			stableCost = cost;
+			stableSince = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Publish the best solution of a chain if no chain found a better one in the meantime
+	 *
+	 * @param solution      the current solution of the chain, left untouched
+	 * @param cost          the cost of the best solution of the chain
+	 * @param bestCommitted true if the best solution of the chain is the last committed state of solution
+	 */
+	void offer(Solution solution, double cost, boolean bestCommitted) {
+		if (bestCommitted && cost < best.get().cost) {
+			publish(solution.committed(), cost);
+		}
+	}
+
+	/**
+	 * Replace the incumbent unless a cheaper one was published in the meantime
+	 *
+	 * @param solution a copy owned by the handle
+	 * @param cost     its cost
+	 */
+	private void publish(Solution solution, double cost) {
+		Incumbent candidate = new Incumbent(solution, cost);
+		Incumbent current = best.get();
+		while (cost < current.cost) {
+			if (best.compareAndSet(current, candidate)) {
+				record(cost);
+				if (listener != null) {
+					listener.improved(candidate.solution.toActions(), cost);
+				}
+				return;
+			}
+			current = best.get();
+		}
+	}
+
+	/**
+	 * @param now      the current value of System.nanoTime
+	 * @param progress the share of the search time elapsed
+	 * @return true if the search was cancelled, reached its target or its best cost is stable
+	 */
+	boolean stopped(long now, double progress) {
+		return cancelled || reached || (window > 0 && progress >= MIN_PROGRESS && now - stableSince > window);
+	}
+
+	/**
+	 * Stop the shuffle, which returns its best solution as soon as its chains notice
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if the shuffle was cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return the best solution published so far
+	 */
+	public Solution best() {
+		return best.get().solution;
+	}
+
+	/**
+	 * @return the cost of the best solution published so far
+	 */
+	public double bestCost() {
+		return best.get().cost;
+	}
+
+	/**
+	 * @return the best plan published so far
+	 */
+	public ActionEntry[] bestActions() {
+		return best().toActions();
+	}
+
+	/**
+	 * @return the best solution published so far with its cost
+	 */
+	Incumbent incumbent() {
+		return best.get();
+	}
+
+	/**
+	 * Immutable snapshot of the best solution found so far
+	 */
+	static final class Incumbent {
+		final Solution solution;
+		final double cost;
+
+		private Incumbent(Solution solution, double cost) {
+			this.solution = solution;
+			this.cost = cost;
+		}
+	}
+}
@@ -14,9 +14,19 @@ import logist.topology.Topology.City;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 //the list of imports
 
@@ -29,20 +39,78 @@ public class CentralizedPlanning {
 
 	private static final boolean VERBOSE = false;
 
-	private static final double STARTING_TEMPERATURE = 100_000.;
-	private static final double FINAL_TEMPERATURE = 100.;
-	private static final double LAMBDA = FINAL_TEMPERATURE / STARTING_TEMPERATURE;
-	private static final double SECURE_FACTOR = 0.9;
-	private static final double PROBA_CHANGE_VEHICLE = 0.2;
+	private static final String ANNEALING_MODE = "annealing";
+	private static final String ALNS_MODE = "alns";
+	private static final String TABU_MODE = "tabu";
+	private static final String MEMETIC_MODE = "memetic";
+	private static final String CP_MODE = "cp";
+	// Random operators and their initial probabilities, adapted during each annealing chain
+	private static final int CHANGE_VEHICLE = 0;
+	private static final int CHANGE_ROUTE = 1;
+	private static final int CHANGE_TASK = 2;
+	private static final double[] OPERATOR_SHARES = { 0.2, 0.2, 0.6 };
+	// Random moves of the starting solution sampled to calibrate the starting temperature
+	private static final int CALIBRATION_MOVES = 100;
+	// Random moves insert the actions of a task after an action in one of the CANDIDATE_CITIES nearest cities
+	private static final int CANDIDATE_CITIES = 4;
 	private static final int TEMP_DECREASE_FACTOR = 4;
 
+	// Construction heuristics tried for the initial solution, the first one always finishes
+	private static final Construction[] CONSTRUCTIONS = { new SequentialConstruction(), new RegretInsertion(1),
+			new RegretInsertion(2), new RegretInsertion(3) };
+	// Share of the planning time given to the constructions
+	private static final double CONSTRUCTION_FACTOR = 0.1;
+
+	// Task sets at least that large are first planned by parts, one part per vehicle
+	private static final int DECOMPOSITION_TASKS = 150;
+	// Share of the search time given to the parts, the rest goes to the repair of the whole solution
+	private static final double DECOMPOSITION_FACTOR = 0.6;
+
+	// Starting temperature of each chain of the portfolio, relative to the calibrated one
+	private static final double[] CHAIN_TEMPERATURE_FACTORS = { 1., 0.5, 2., 0.25 };
+
+	// Neighborhoods with fewer candidate moves are scored on the calling thread
+	private static final int PARALLEL_NEIGHBORHOOD = 512;
+	private static final int ROWS_PER_TASK = 4;
+
+	// Task sets smaller than EXACT_TASKS are solved exactly instead of shuffled
+	private static final int EXACT_TASKS = 8;
+	// Largest setting of sls-exact, the exact solver takes time and memory in 3^n
+	private static final int MAX_EXACT_TASKS = 9;
+	// Task sets larger than CP_TASKS are annealed in the "cp" mode, their model propagates too slowly
+	private static final int CP_TASKS = 20;
+
+	// A shuffle stops once its best cost is within GAP of the lower bound of the optimum
+	private static final double GAP = 0.02;
+
+	// Number of moves a chain keeps in its undo journal before publishing its best solution, which also bounds the
+	// rollback done by each chain to publish its last solution after its deadline
+	private static final int JOURNAL_CAPACITY = 1 << 12;
+
+	private TopologyIndex index;
+	private GranularNeighborhood granular;
+	private LowerBound lowerBound;
 	private TaskDistribution distribution;
 	private Agent agent;
 	private long timeout_setup;
 	private long timeout_plan;
 	private Random random;
 
-	public void setup(TaskDistribution distribution, Agent agent) {
+	private int nChains;
+	private String mode;
+	private int decompositionTasks;
+	private double gap;
+	private int exactTasks;
+	private static ExecutorService chains;
+	// Best solutions of the previous shuffles, the next planning starts from the closest one
+	private final SolutionStore store = new SolutionStore();
+
+	/**
+	 * @param index        the distances of the topology, shared with the agent
+	 * @param distribution
+	 * @param agent
+	 */
+	public void setup(TopologyIndex index, TaskDistribution distribution, Agent agent) {
 
 		// this code is used to get the timeouts
 		LogistSettings ls = null;
@@ -59,9 +127,45 @@ public class CentralizedPlanning {
 
 		System.out.println("Plan has " + timeout_plan + "ms to finish");
 
+		this.index = index;
+		this.granular = new GranularNeighborhood(index, CANDIDATE_CITIES);
+		this.lowerBound = new LowerBound(index);
 		this.distribution = distribution;
 		this.agent = agent;
 		this.random = new Random(2019);
+
+		// Number of annealing chains run in parallel, a single chain on the calling thread by default and never more
+		// chains than cores, the timeouts being measured in wall-clock time
+		this.nChains = Math.min(agent.readProperty("sls-chains", Integer.class, 1),
+				Runtime.getRuntime().availableProcessors());
+		// Search run by each chain: "annealing" by default, "alns" for the adaptive large neighborhood search, "tabu"
+		// for the tabu search, "memetic" for an island of the memetic search or "cp" for the constraint programming search
+		this.mode = agent.readProperty("sls-mode", String.class, ANNEALING_MODE);
+		if (CP_MODE.equals(mode)) {
+			// the bundled JSolver is not documented as thread-safe, its models are only built on the calling thread
+			this.nChains = 1;
+		}
+		// Number of tasks from which the plan is first searched by geographic parts, when several chains run
+		this.decompositionTasks = agent.readProperty("sls-decomposition", Integer.class, DECOMPOSITION_TASKS);
+		// Relative optimality gap under which a shuffle stops before its timeout, negative to always use the timeout
+		this.gap = agent.readProperty("sls-gap", Double.class, GAP);
+		// Number of tasks under which the plan is solved exactly, 0 to always search
+		this.exactTasks = Math.min(agent.readProperty("sls-exact", Integer.class, EXACT_TASKS), MAX_EXACT_TASKS);
+	}
+
+	/**
+	 * @return the threads running the chains, shared by all the planners and created on first use
+	 */
+	private static synchronized ExecutorService chains() {
+		if (chains == null) {
+			// the idle threads are reused by the next shuffles and never keep the simulation alive
+			chains = Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "sls-chain");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return chains;
 	}
 
 	public List<Plan> plan(List<Vehicle> vehicles, TaskSet tasks) {
@@ -74,8 +178,21 @@ public class CentralizedPlanning {
 			return plans;
 		}
 
-		ActionEntry[] currentSolution = initialSolution(vehicles, tasks);
-		ActionEntry[] best = shuffle(vehicles, currentSolution, timeout_plan);
+		long time_start = System.currentTimeMillis();
+		Solution currentSolution = store.seed(vehicles, tasks.toArray(new Task[0]), index,
+				time_start + Math.round(timeout_plan * CONSTRUCTION_FACTOR));
+		if (currentSolution != null) {
+			if (VERBOSE) {
+				System.out.println("Warm start cost: " + currentSolution.cost());
+			}
+		} else if (tasks.size() >= decompositionTasks && vehicles.size() > 1 && nChains > 1) {
+			// the parts only pay off when they run in parallel
+			currentSolution = decompose(vehicles, tasks.toArray(new Task[0]), time_start, timeout_plan);
+		} else {
+			currentSolution = initialSolution(vehicles, tasks, Math.round(timeout_plan * CONSTRUCTION_FACTOR));
+		}
+		long remaining = timeout_plan - (System.currentTimeMillis() - time_start);
+		ActionEntry[] best = shuffle(vehicles, currentSolution, remaining).toActions();
 
 		return planFromSolution(best, vehicles);
 	}
@@ -99,9 +216,7 @@ public class CentralizedPlanning {
 			ActionEntry next = best[vId].next;
 			while (next != null) {
 				City nextCity = next.pickup ? next.task.pickupCity : next.task.deliveryCity;
-				for (City city : current.pathTo(nextCity)) {
-					plan.appendMove(city);
-				}
+				index.appendPath(plan, current, nextCity);
 
 				if (next.pickup) {
 					plan.appendPickup(next.task);
@@ -137,9 +252,7 @@ public class CentralizedPlanning {
 			ActionEntry next = best[vId].next;
 			while (next != null) {
 				City nextCity = next.pickup ? next.task.pickupCity : next.task.deliveryCity;
-				for (City city : current.pathTo(nextCity)) {
-					plan.appendMove(city);
-				}
+				index.appendPath(plan, current, nextCity);
 
 				// Find real task
 				Task realNextTask = null;
@@ -174,6 +287,36 @@ public class CentralizedPlanning {
 	 * @return the best plan of the shuffle
 	 */
 	public ActionEntry[] shuffle(List<Vehicle> vehicles, ActionEntry[] currentSolution, long timeout) {
+		return shuffle(vehicles, currentSolution, timeout, new AnytimeSearch());
+	}
+
+	/**
+	 * Shuffle a solution for at most timeout millisecond
+	 *
+	 * @param vehicles        the list of vehicles in the solution
+	 * @param currentSolution the current solution
+	 * @param timeout         the time in millisecond before ending the shuffle
+	 * @param search          the handle publishing the best solutions and stopping the shuffle early
+	 * @return the best plan of the shuffle
+	 */
+	public ActionEntry[] shuffle(List<Vehicle> vehicles, ActionEntry[] currentSolution, long timeout,
+			AnytimeSearch search) {
+		return shuffle(vehicles, currentSolution, timeout, search, store);
+	}
+
+	/**
+	 * Shuffle a solution for at most timeout millisecond and remember its best solution in a given store, or nowhere for
+	 * the callers that never plan from the store
+	 *
+	 * @param vehicles        the list of vehicles in the solution
+	 * @param currentSolution the current solution
+	 * @param timeout         the time in millisecond before ending the shuffle
+	 * @param search          the handle publishing the best solutions and stopping the shuffle early
+	 * @param store           the store of the best solutions of this kind of plans, null to remember nothing
+	 * @return the best plan of the shuffle
+	 */
+	public ActionEntry[] shuffle(List<Vehicle> vehicles, ActionEntry[] currentSolution, long timeout,
+			AnytimeSearch search, SolutionStore store) {
 
 		boolean hasTasks = false;
 		for (ActionEntry a : currentSolution) {
@@ -183,267 +326,634 @@ public class CentralizedPlanning {
 			return currentSolution;
 		}
 
+		return shuffle(vehicles, Solution.fromActions(currentSolution, vehicles, index), timeout, search, store)
+				.toActions();
+	}
+
+	/**
+	 * Shuffle a compact solution for timeout millisecond
+	 * <p>
+	 * Several independent chains are run in parallel, each with its own random seed and starting temperature. The
+	 * annealing chains share the best solution found so far and periodically restart from it. The best solution is
+	 * stored to seed the next plannings.
+	 *
+	 * @param vehicles        the list of vehicles in the solution
+	 * @param currentSolution the current solution, containing at least one task
+	 * @param timeout         the time in millisecond before ending the shuffle
+	 * @return the best solution of the shuffle
+	 */
+	public Solution shuffle(List<Vehicle> vehicles, Solution currentSolution, long timeout) {
+		return shuffle(vehicles, currentSolution, timeout, new AnytimeSearch());
+	}
+
+	/**
+	 * Shuffle a compact solution for at most timeout millisecond
+	 * <p>
+	 * The chains publish their best solutions through the handle, which also stops them when it is cancelled, when its
+	 * best cost is stable or when it is within the accepted gap of the lower bound of the optimum. A solution with less
+	 * than EXACT_TASKS tasks is solved exactly instead.
+	 *
+	 * @param vehicles        the list of vehicles in the solution
+	 * @param currentSolution the current solution, containing at least one task
+	 * @param timeout         the time in millisecond before ending the shuffle
+	 * @param search          the handle publishing the best solutions and stopping the shuffle early
+	 * @return the best solution of the shuffle
+	 */
+	public Solution shuffle(List<Vehicle> vehicles, Solution currentSolution, long timeout, AnytimeSearch search) {
+		return shuffle(vehicles, currentSolution, timeout, search, store);
+	}
+
+	/**
+	 * Shuffle a compact solution for at most timeout millisecond and remember its best solution in a given store
+	 *
+	 * @see #shuffle(List, Solution, long, AnytimeSearch)
+	 */
+	private Solution shuffle(List<Vehicle> vehicles, Solution currentSolution, long timeout, AnytimeSearch search,
+			SolutionStore store) {
+
 		long time_start = System.currentTimeMillis();
 
+		search.start(currentSolution);
+		if (gap >= 0) {
+			search.target(lowerBound.of(vehicles, currentSolution) * (1. + gap));
+		}
+
+		// OPTION 0: A small task set is solved exactly on the calling thread
+		if (currentSolution.taskCount() < exactTasks) {
+			Solution exact = new ExactSolver(index).solve(vehicles, currentSolution,
+					new DeadlineScheduler(time_start, timeout, search));
+			if (exact != null) {
+				exact.commit();
+				search.offer(exact, exact.cost(), true);
+				return remember(search, store);
+			}
+		}
+
+		// OPTION 1: A single chain runs on the calling thread
+		if (nChains <= 1) {
+			chain(vehicles, currentSolution, search, random, 1., time_start, timeout);
+			return remember(search, store);
+		}
+
+		// OPTION 2: A portfolio of chains runs on the thread pool
+		List<Future<?>> futures = new ArrayList<>();
+		for (int c = 0; c < nChains; c++) {
+			Random chainRandom = new Random(random.nextLong());
+			double temperatureFactor = CHAIN_TEMPERATURE_FACTORS[c % CHAIN_TEMPERATURE_FACTORS.length];
+			futures.add(chains().submit(() -> chain(vehicles, currentSolution, search, chainRandom,
+					temperatureFactor, time_start, timeout)));
+		}
+
+		// the chains publish their last solution after their deadline, wait for it during half of the margin left
+		long deadline = new DeadlineScheduler(time_start, timeout).deadlineMillis();
+		try {
+			for (Future<?> f : futures) {
+				long remaining = deadline + (time_start + timeout - deadline) / 2 - System.currentTimeMillis();
+				f.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+			}
+		} catch (TimeoutException e) {
+			// keep the best solution found in time
+			for (Future<?> f : futures) {
+				f.cancel(true);
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("Annealing chain failed", e);
+		}
+		return remember(search, store);
+	}
+
+	/**
+	 * Store the best solution of a shuffle for the next plannings, unless the store is null
+	 *
+	 * @return the best solution of the shuffle
+	 */
+	private Solution remember(AnytimeSearch search, SolutionStore store) {
+		AnytimeSearch.Incumbent best = search.incumbent();
+		if (store != null) {
+			store.save(best.solution, best.cost);
+		}
+		return best.solution;
+	}
+
+	/**
+	 * Run one chain of the portfolio with the search selected in the settings
+	 *
+	 * @see #anneal(List, Solution, AnytimeSearch, Random, double, long, long)
+	 */
+	private void chain(List<Vehicle> vehicles, Solution start, AnytimeSearch search, Random random,
+			double temperatureFactor, long time_start, long timeout) {
+		DeadlineScheduler scheduler = new DeadlineScheduler(time_start, timeout, search);
+		Solution s;
+		switch (mode) {
+		case ALNS_MODE:
+			s = new AdaptiveLargeNeighborhoodSearch(index).search(start, random, scheduler);
+			break;
+		case TABU_MODE:
+			s = new TabuSearch().search(start, random, scheduler);
+			break;
+		case MEMETIC_MODE:
+			s = new MemeticSearch().search(start, random, scheduler, search);
+			break;
+		case CP_MODE:
+			if (start.taskCount() > CP_TASKS) {
+				anneal(vehicles, start, search, random, temperatureFactor, scheduler);
+				return;
+			}
+			s = new ConstraintSearch(index).search(vehicles, start, random, scheduler);
+			break;
+		default:
+			anneal(vehicles, start, search, random, temperatureFactor, scheduler);
+			return;
+		}
+		search.offer(s, s.cost(), true);
+	}
+
+	/**
+	 * Run one simulated annealing chain until the deadline of its scheduler
+	 * <p>
+	 * The temperature and the mix of random operators are tuned online by an {@link AnnealingController}.
+	 *
+	 * @param vehicles            the list of vehicles in the solution
+	 * @param start               the solution to start from, left untouched
+	 * @param search              the best solution found by all chains, updated when this chain finds a better one
+	 * @param random              the random generator of this chain
+	 * @param temperatureFactor   the factor of the calibrated starting temperature of this chain
+	 * @param scheduler           the deadline of this chain
+	 */
+	private void anneal(List<Vehicle> vehicles, Solution start, AnytimeSearch search, Random random,
+			double temperatureFactor, DeadlineScheduler scheduler) {
+
 		/*
 		 * Initialization
 		 */
 
-		int iteration = 0;
-		double temperature = STARTING_TEMPERATURE;
+		// moves are applied in place, so the starting solution is left untouched
+		Solution currentSolution = start.copy();
+		AnnealingController controller = new AnnealingController(OPERATOR_SHARES);
+		for (int i = 0; i < CALIBRATION_MOVES; i++) {
+			Neighbor n = computeRandomNeighbor(currentSolution, vehicles, controller.operator(random), random);
+			if (n != null) {
+				controller.sample(n.delta());
+			}
+		}
+		double temperature = controller.start(temperatureFactor);
+		double proba_linear = 1.;
 		double lastTemp = temperature;
-		ActionEntry[] best = currentSolution;
-		double bestCost = computeCost(currentSolution, vehicles);
+		// true while a rollback of the current solution restores the best solution of this chain
+		boolean bestCommitted = true;
+		double bestCost = currentSolution.cost();
 		double currentCost = bestCost;
-		double currentTime = 0.;
-		double sumP = 0.;
-		int countP = 0;
 
 		/*
 		 * Stochastic Local Search algorithm for COP
 		 */
 
-		do {
-			ActionEntry[] selectedN;
+		while (scheduler.next()) {
+			Neighbor selectedN;
+			// operator of the random neighbor, -1 for a best neighbor
+			int operator = -1;
 
-			// Linearly decreasing temperature
-			double temp_linear = STARTING_TEMPERATURE - (STARTING_TEMPERATURE - FINAL_TEMPERATURE)
-					* (currentTime - time_start) / (timeout * SECURE_FACTOR);
-			double proba_linear = (temp_linear - FINAL_TEMPERATURE) / (STARTING_TEMPERATURE - FINAL_TEMPERATURE);
+			if (scheduler.sampled()) {
+				// Linearly decreasing probability of a random neighbor
+				proba_linear = 1. - scheduler.progress();
+			}
+			temperature = controller.temperature();
 
 			if (random.nextDouble() < proba_linear) {
 				// OPTION 1: Compute (almost) random neighbor
-				selectedN = computeRandomNeighbor(currentSolution, vehicles);
+				operator = controller.operator(random);
+				selectedN = computeRandomNeighbor(currentSolution, vehicles, operator, random);
 
 			} else {
 				// OPTION 2: Get best neighbor of neighborSet for a random task & vehicle.
-				List<ActionEntry[]> neighbors = computeNeighbors(currentSolution, vehicles);
-				if (neighbors.isEmpty()) {
-					currentTime = System.currentTimeMillis();
+				selectedN = computeBestNeighbor(currentSolution, vehicles, random);
+				if (selectedN == null) {
 					continue;
 				}
-				selectedN = selecBestNeighbor(neighbors, vehicles);
 			}
 
 			/*
 			 * Simulated Annealing component
+			 *
+			 * A missing neighbor stands for staying at the current solution.
 			 */
-			double costN = computeCost(selectedN, vehicles);
+			double costN = selectedN == null ? currentCost : currentCost + selectedN.delta();
+			if (operator >= 0) {
+				controller.reward(operator, costN < currentCost);
+			}
 
 			// OPTION 1: If the cost is better change automatically
 			if (costN < currentCost) {
 				currentCost = costN;
-				currentSolution = selectedN;
-				// If this is the best cost found yet, save it
+				selectedN.applyTo(currentSolution);
+				// If this is the best cost found yet, remember it without copying the solution
 				if (costN < bestCost) {
 					bestCost = costN;
-					best = selectedN;
+					currentSolution.commit();
+					bestCommitted = true;
+					search.improved(currentSolution, costN);
 				}
 			} else {
 				// OPTION 2: With exp decreasing probability change anyways
 				double p = Math.exp((currentCost - costN) / temperature);
-				sumP += p;
-				if (p < 0.9 && p > 0.1) {
-					countP++;
+				boolean accepted = p > random.nextDouble() && selectedN != null;
+				if (costN > currentCost) {
+					controller.worsening(accepted, scheduler.progress());
 				}
 
-				if (p > random.nextDouble()) {
+				if (accepted) {
 					currentCost = costN;
-					currentSolution = selectedN;
+					selectedN.applyTo(currentSolution);
 				}
 			}
 
 			/*
 			 * End of step updates
 			 */
-			currentTime = System.currentTimeMillis();
-			temperature = STARTING_TEMPERATURE
-					* Math.pow(LAMBDA, (currentTime - time_start) / (timeout * SECURE_FACTOR));
-			iteration++;
+			// Bound the journal when the chain does not improve for a long time
+			if (currentSolution.journalSize() > JOURNAL_CAPACITY) {
+				search.offer(currentSolution, bestCost, bestCommitted);
+				currentSolution.commit();
+				bestCommitted = false;
+			}
 
 			/*
 			 * Additional mechanism: Every time temperature decreases by factor
-			 * "tempDecreaseFactor", restart at current best solution.
+			 * "tempDecreaseFactor", restart at the best solution of all chains.
 			 */
 			if (lastTemp / TEMP_DECREASE_FACTOR > temperature) {
 				lastTemp = temperature;
-				currentCost = bestCost;
-				currentSolution = best;
+				search.offer(currentSolution, bestCost, bestCommitted);
+				AnytimeSearch.Incumbent restart = search.incumbent();
+				if (bestCommitted && restart.cost >= bestCost) {
+					// the best solution of this chain is the best one of all chains
+					currentSolution.rollback();
+				} else {
+					currentSolution = restart.solution.copy();
+				}
+				currentSolution.commit();
+				bestCommitted = true;
+				bestCost = restart.cost;
+				currentCost = restart.cost;
 			}
 
 			/*
 			 * Print useful info while running planning
 			 */
 			if (VERBOSE) {
-				if (iteration % 2000 == 0) {
-					System.out.println("it: " + String.format("%d", iteration) + "    time: "
-							+ String.format("%5.0f", currentTime - time_start) + "     temp: "
+				if (scheduler.iterations() % 2000 == 0) {
+					System.out.println("it: " + String.format("%d", scheduler.iterations()) + "    time: "
+							+ String.format("%5d", scheduler.elapsedMillis()) + "     temp: "
 							+ String.format("%5.0f", temperature));
 					System.out.println("Best Cost: " + String.format("%6.0f", bestCost) + "    current cost:"
 							+ String.format("%6.0f", currentCost));
-					System.out.println("AVG p = " + String.format("%1.3f", sumP / 2000) + "    counter p (0.1,0.9) = "
-							+ String.format("%d", countP));
+					System.out.println("Acceptance of worsening moves: " + String.format("%1.3f", controller.acceptance()));
 					System.out.println();
-					countP = 0;
-					sumP = 0;
 				}
 			}
+		}
 
-			// end the loop once we approach the end of timeout
-		} while (currentTime - time_start < SECURE_FACTOR * timeout);
+		search.offer(currentSolution, bestCost, bestCommitted);
 
 		/*
 		 * Print final result
 		 */
 		if (VERBOSE) {
-			System.out.println("\nAlgo did " + iteration + " iterations");
+			Solution b = search.best();
+			System.out.println("\nAlgo did " + scheduler.iterations() + " iterations");
 			System.out.println("The final temperature was " + temperature);
-			System.out.println("Final Cost: " + bestCost);
-			System.out.println("Max Cost: " + computeMaxCost(best, vehicles));
-			System.out.println("Sum Cost: " + computeSumCost(best, vehicles));
+			System.out.println("Final Cost: " + search.bestCost());
+			System.out.println("Max Cost: " + computeMaxCost(b, vehicles));
+			System.out.println("Sum Cost: " + computeSumCost(b, vehicles));
 
 			System.out.println("Plan:");
-			for (Vehicle v : vehicles) {
-				System.out.println(best[v.id()]);
+			for (int v = 0; v < vehicles.size(); v++) {
+				System.out.println(b.toString(v));
 			}
 		}
-		return best;
 	}
 
 	/**
-	 * Create an initial solution
+	 * Plan a large task set by parts before the search of the whole solution
+	 * <p>
+	 * The tasks are clustered by geography and each cluster is given to a vehicle. The part of each vehicle is then
+	 * constructed and searched alone, the parts running in parallel on the chains, so this requires several chains. The
+	 * merged solution is left to the caller, whose search of the whole solution repairs the boundaries between parts.
 	 *
-	 * @param vehicles list of vehicles
-	 * @param tasks    set of tasks
-	 * @return ActionEntry table
+	 * @param vehicles   list of vehicles
+	 * @param tasks      the tasks to plan
+	 * @param time_start the time at which the planning started
+	 * @param timeout    the time in millisecond given to the planning
+	 * @return the merged solution of the parts
 	 */
-	private ActionEntry[] initialSolution(List<Vehicle> vehicles, TaskSet tasks) {
-		ActionEntry[] currentSolution = new ActionEntry[vehicles.size()];
-		for (int i = 0; i < vehicles.size(); i++) {
-			currentSolution[i] = new ActionEntry(i);
+	private Solution decompose(List<Vehicle> vehicles, Task[] tasks, long time_start, long timeout) {
+		int[] vehicleOf = new TaskClustering(index).partition(tasks, vehicles, random);
+
+		List<Integer> owners = new ArrayList<>();
+		List<Task[]> parts = new ArrayList<>();
+		for (int v = 0; v < vehicles.size(); v++) {
+			List<Task> part = new ArrayList<>();
+			for (int t = 0; t < tasks.length; t++) {
+				if (vehicleOf[t] == v) {
+					part.add(tasks[t]);
+				}
+			}
+			if (!part.isEmpty()) {
+				owners.add(v);
+				parts.add(part.toArray(new Task[0]));
+			}
+		}
+
+		// the parts run in rounds of one part per chain, each round getting the same share of the time
+		int rounds = (parts.size() + nChains - 1) / nChains;
+		long remaining = timeout - (System.currentTimeMillis() - time_start);
+		long partTimeout = Math.round(remaining * DECOMPOSITION_FACTOR / rounds);
+
+		List<Callable<ActionEntry>> jobs = new ArrayList<>();
+		for (int p = 0; p < parts.size(); p++) {
+			List<Vehicle> single = Collections.singletonList(vehicles.get(owners.get(p)));
+			Task[] part = parts.get(p);
+			Random partRandom = new Random(random.nextLong());
+			jobs.add(() -> solvePart(single, part, partRandom, partTimeout));
 		}
 
-		// assign all task to vehicles with biggest capacity
-		int maxCapacity = 0;
-		int vMaxCap = 0;
-		for (Vehicle v : vehicles) {
-			if (v.capacity() > maxCapacity) {
-				maxCapacity = v.capacity();
-				vMaxCap = v.id();
+		List<ActionEntry> heads = new ArrayList<>();
+		try {
+			for (Future<ActionEntry> f : chains().invokeAll(jobs)) {
+				heads.add(f.get());
 			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("Decomposition part failed", e);
 		}
 
-		ActionEntry a = currentSolution[vMaxCap];
-		for (Task t : tasks) {
-			if (maxCapacity < t.weight) {
-				throw new IllegalStateException("No vehicles can carry task:\n " + t.toString());
+		ActionEntry[] merged = new ActionEntry[vehicles.size()];
+		for (int v = 0; v < merged.length; v++) {
+			merged[v] = new ActionEntry(v);
+		}
+		for (int p = 0; p < heads.size(); p++) {
+			int v = owners.get(p);
+			for (ActionEntry a = heads.get(p); a != null; a = a.next) {
+				a.vehicleId = v;
 			}
-			ActionEntry newA = new ActionEntry(t, true);
-			a.add(newA);
-			a = newA;
-			newA = new ActionEntry(t, false);
-			a.add(newA);
-			a = newA;
+			merged[v] = heads.get(p);
 		}
+		return Solution.fromActions(merged, vehicles, index);
+	}
 
-		for (int i = 0; i < vehicles.size(); i++) {
-			currentSolution[i].updateTimeAndLoad(Integer.MAX_VALUE);
+	/**
+	 * Construct and search the part of a single vehicle
+	 *
+	 * @param single  the vehicle of the part
+	 * @param tasks   the tasks of the part
+	 * @param random  the random generator of the part
+	 * @param timeout the time in millisecond given to the part
+	 * @return the header of the best schedule found for the vehicle
+	 */
+	private ActionEntry solvePart(List<Vehicle> single, Task[] tasks, Random random, long timeout) {
+		long time_start = System.currentTimeMillis();
+
+		// the constructions keep state between calls, so each part builds its own
+		Solution part = new Solution(single, tasks, index);
+		if (!new RegretInsertion(1).build(part, time_start + Math.round(timeout * CONSTRUCTION_FACTOR))) {
+			part = new Solution(single, tasks, index);
+			new SequentialConstruction().build(part, Long.MAX_VALUE);
 		}
 
-		return currentSolution;
+		AnytimeSearch search = new AnytimeSearch();
+		search.start(part);
+		chain(single, part, search, random, 1., time_start, timeout);
+		return search.best().toActions()[0];
 	}
 
 	/**
-	 * Choose multiple neighbors of a solution
+	 * Create an initial solution with each construction heuristic that finishes in time and keep the cheapest
 	 *
-	 * @return a list of valid neighbors of the solution
+	 * @param vehicles list of vehicles
+	 * @param tasks    set of tasks
+	 * @param timeout  the time in millisecond given to the constructions
+	 * @return the initial solution
 	 */
-	private List<ActionEntry[]> computeNeighbors(ActionEntry[] solution, List<Vehicle> vehicles) {
+	private Solution initialSolution(List<Vehicle> vehicles, TaskSet tasks, long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		Solution empty = new Solution(vehicles, tasks.toArray(new Task[0]), index);
+
+		Solution best = null;
+		for (Construction construction : CONSTRUCTIONS) {
+			Solution s = empty.copy();
+			if (construction.build(s, deadline) && (best == null || s.cost() < best.cost())) {
+				best = s;
+				if (VERBOSE) {
+					System.out.println(construction.name() + " cost: " + s.cost());
+				}
+			}
+		}
+		return best;
+	}
 
-		List<ActionEntry[]> neighbors = new ArrayList<>();
+	/**
+	 * Find the best neighbor of a solution for a random task of a random vehicle.
+	 * <p>
+	 * The task is either moved to a random position of every other vehicle or reordered at every position of its
+	 * own vehicle. Only the descriptor of the cheapest move is kept. Large neighborhoods are scored in parallel when a
+	 * single chain runs, the chains of a portfolio already using the cores.
+	 *
+	 * @param solution the current solution, left untouched
+	 * @param vehicles the list of vehicles in the solution
+	 * @param random   the random generator of the calling chain
+	 * @return the best move, or null if no move is feasible
+	 */
+	private Move computeBestNeighbor(Solution solution, List<Vehicle> vehicles, Random random) {
 
 		// select random vehicle with a task
-		int randomVid = random.nextInt(solution.length);
-		while (solution[randomVid].next == null) {
-			randomVid = random.nextInt(solution.length);
-		}
+		int randomVid = randomVehicleWithTasks(solution, random);
 
-		// compute length
-		ActionEntry c = solution[randomVid].next;
-		while (c.next != null) {
-			c = c.next;
-		}
-		int lenght = c.time;
-		Task t = c.task;
-
-		/*
-		 * Change a task from one vehicle to another
-		 */
-		for (int vId = 0; vId < vehicles.size(); vId++) {
+		// pick random task
+		int length = solution.size(randomVid);
+		int t = Solution.taskOf(solution.action(randomVid, random.nextInt(length)));
+
+		// draw the positions in the other vehicles up front, the generator is not shared with the workers
+		int nVehicles = vehicles.size();
+		int[] pickups = new int[nVehicles];
+		int[] deliveries = new int[nVehicles];
+		for (int vId = 0; vId < nVehicles; vId++) {
 			if (vId == randomVid) {
 				continue;
 			}
-			ActionEntry[] a = ActionEntry.copy(solution);
-			boolean valid = changeVTask(a, vehicles, t, randomVid, vId);
-			if (valid) {
-				ActionEntry c2 = a[vId].next;
-				while (c2.next != null) {
-					c2 = c2.next;
-				}
-				int lenght2 = c2.time;
-				int iP = random.nextInt(lenght2 - 1) + 1;
-				int iD = random.nextInt(lenght2 - iP) + iP + 1;
-				boolean valid2 = changeTaskOrder(a, vehicles, vId, t, iP, iD);
-				if (valid2) {
-					neighbors.add(a);
-				}
-			}
-
+			int length2 = solution.size(vId) + 2;
+			pickups[vId] = random.nextInt(length2 - 1);
+			deliveries[vId] = random.nextInt(length2 - pickups[vId] - 1) + pickups[vId] + 1;
 		}
 
-		/*
-		 * Changing task order
-		 */
+		NeighborSearch search = new NeighborSearch(solution, t, pickups, deliveries, 0, nVehicles + length - 1);
+		if (nChains <= 1 && ForkJoinPool.getCommonPoolParallelism() > 1
+				&& length * length / 2 + nVehicles >= PARALLEL_NEIGHBORHOOD) {
+			return ForkJoinPool.commonPool().invoke(search);
+		}
+		return search.best(0, nVehicles + length - 1);
+	}
 
-		// pick random task
-		int tId = random.nextInt(lenght) + 1;
-		c = solution[randomVid].next;
-		while (c.time != tId) {
-			c = c.next;
+	/**
+	 * Fork/join search of the best neighbor over a range of rows of the neighborhood.
+	 * <p>
+	 * Row vId &lt; number of vehicles moves the task to vehicle vId, the following rows reorder the task with its
+	 * pickup at index row - number of vehicles. When two moves have the same cost the first row wins, so the result
+	 * does not depend on the way the range is split.
+	 */
+	private static final class NeighborSearch extends RecursiveTask<Move> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Solution solution;
+		private final int t;
+		private final int[] pickups;
+		private final int[] deliveries;
+		private final int from;
+		private final int to;
+
+		private NeighborSearch(Solution solution, int t, int[] pickups, int[] deliveries, int from, int to) {
+			this.solution = solution;
+			this.t = t;
+			this.pickups = pickups;
+			this.deliveries = deliveries;
+			this.from = from;
+			this.to = to;
 		}
 
-		// For all positions
-		for (int iP = 1; iP < lenght; iP++) {
-			int iD = iP + 1;
-			boolean valid = true;
-			boolean sameFound = true;
+		@Override
+		protected Move compute() {
+			if (to - from <= ROWS_PER_TASK) {
+				return best(from, to);
+			}
+			int middle = (from + to) >>> 1;
+			NeighborSearch right = new NeighborSearch(solution, t, pickups, deliveries, middle, to);
+			right.fork();
+			Move left = new NeighborSearch(solution, t, pickups, deliveries, from, middle).compute();
+			return better(left, right.join());
+		}
 
-			while ((valid || sameFound) && iD <= lenght) {
+		/**
+		 * @return the best move of rows [lo, hi), or null if none is feasible
+		 */
+		private Move best(int lo, int hi) {
+			int vId = solution.vehicleOf(t);
+			int nVehicles = pickups.length;
+			int length = solution.size(vId);
+
+			// descriptor of the best move, a single move is allocated for it at the end
+			int bestV = -1;
+			int bestP = 0;
+			int bestD = 0;
+			double bestDelta = Double.POSITIVE_INFINITY;
+
+			for (int row = lo; row < hi; row++) {
+
+				/*
+				 * Change a task from one vehicle to another
+				 */
+				if (row < nVehicles) {
+					if (row != vId && solution.canMove(t, row, pickups[row], deliveries[row])) {
+						double delta = solution.moveDelta(t, row, pickups[row], deliveries[row]);
+						if (bestV < 0 || delta < bestDelta) {
+							bestV = row;
+							bestP = pickups[row];
+							bestD = deliveries[row];
+							bestDelta = delta;
+						}
+					}
+					continue;
+				}
 
-				ActionEntry[] a = ActionEntry.copy(solution);
-				valid = changeTaskOrder(a, vehicles, randomVid, t, iP, iD);
-				if (valid) {
-					neighbors.add(a);
-				} else {
-					valid = sameFound;
-					sameFound = false;
+				/*
+				 * Changing task order
+				 */
+				int iP = row - nVehicles;
+				for (int iD = iP + 1; iD < length; iD++) {
+					// if the order is the same as solution
+					if (solution.isAt(t, vId, iP, iD)) {
+						continue;
+					}
+					if (!solution.canMove(t, vId, iP, iD)) {
+						// delivering later only increases the load
+						break;
+					}
+					double delta = solution.moveDelta(t, vId, iP, iD);
+					if (bestV < 0 || delta < bestDelta) {
+						bestV = vId;
+						bestP = iP;
+						bestD = iD;
+						bestDelta = delta;
+					}
 				}
-				iD++;
 			}
+			return bestV < 0 ? null : new Move(t, bestV, bestP, bestD, bestDelta);
+		}
+
+		private static Move better(Move a, Move b) {
+			if (a == null || (b != null && b.delta < a.delta)) {
+				return b;
+			}
+			return a;
 		}
-		return neighbors;
 	}
 
 	/**
 	 * @param currentSolution
 	 * @param vehicles
-	 * @return
+	 * @param operator        the random operator, CHANGE_VEHICLE, CHANGE_ROUTE or CHANGE_TASK
+	 * @return a random valid move, or null if none was found
 	 */
-	private ActionEntry[] computeRandomNeighbor(ActionEntry[] currentSolution, List<Vehicle> vehicles) {
-		if (random.nextDouble() < PROBA_CHANGE_VEHICLE) {
-			return computeRandomChangeV(currentSolution, vehicles);
+	private Neighbor computeRandomNeighbor(Solution currentSolution, List<Vehicle> vehicles, int operator,
+			Random random) {
+		switch (operator) {
+		case CHANGE_VEHICLE:
+			return computeRandomChangeV(currentSolution, vehicles, random);
+		case CHANGE_ROUTE:
+			return computeRandomChangeR(currentSolution, random);
+		default: // CHANGE_TASK
+			return computeRandomChangeT(currentSolution, vehicles, random);
+		}
+	}
+
+	/**
+	 * Draw a random route operator: a 2-opt reversal, an Or-opt segment move or a swap of tasks between vehicles
+	 *
+	 * @param solution
+	 * @return a random valid neighbor, or null if none was found
+	 */
+	private Neighbor computeRandomChangeR(Solution solution, Random random) {
+		// swaps need two vehicles
+		int operator = random.nextInt(solution.vehicleCount() > 1 ? 3 : 2);
+		for (int i = 0; i < 100; i++) {
+			Neighbor n;
+			if (operator == 2) {
+				int t1 = random.nextInt(solution.taskCount());
+				int t2 = random.nextInt(solution.taskCount());
+				if (solution.vehicleOf(t1) == solution.vehicleOf(t2)) {
+					continue;
+				}
+				n = Swap.evaluate(solution, t1, t2);
+			} else {
+				int v = randomVehicleWithTasks(solution, random);
+				int length = solution.size(v);
+				if (operator == 0) {
+					int first = random.nextInt(length - 1);
+					int last = first + 1 + random.nextInt(length - first - 1);
+					n = Reversal.evaluate(solution, v, first, last);
+				} else {
+					int segment = 1 + random.nextInt(Math.min(3, length - 1));
+					int from = random.nextInt(length - segment + 1);
+					int to = random.nextInt(length - segment + 1);
+					if (from == to) {
+						continue;
+					}
+					n = SegmentMove.evaluate(solution, v, from, segment, to);
+				}
+			}
+			if (n != null) {
+				return n;
+			}
 		}
-		return computeRandomChangeT(currentSolution, vehicles);
+		return null;
 	}
 
 	/**
@@ -451,42 +961,30 @@ public class CentralizedPlanning {
 	 * @param vehicles
 	 * @return
 	 */
-	private ActionEntry[] computeRandomChangeT(ActionEntry[] solution, List<Vehicle> vehicles) {
-		int randomVid = random.nextInt(solution.length);
+	private Move computeRandomChangeT(Solution solution, List<Vehicle> vehicles, Random random) {
+		int randomVid = random.nextInt(solution.vehicleCount());
 		int i = 0;
-		while (solution[randomVid].next == null || solution[randomVid].next.next.next == null) {
-			randomVid = random.nextInt(solution.length);
+		while (solution.size(randomVid) < 4) {
+			randomVid = random.nextInt(solution.vehicleCount());
 			if (++i > 10000) {
-				return solution;
+				return null;
 			}
 		}
 
-		// compute length
-		ActionEntry c = solution[randomVid].next;
-		while (c.next != null) {
-			c = c.next;
-		}
-		int lenght = c.time;
-
 		// pick random task
-		int tId = random.nextInt(lenght) + 1;
-		c = solution[randomVid].next;
-		while (c.time != tId) {
-			c = c.next;
-		}
-		Task t = c.task;
+		int length = solution.size(randomVid);
+		int t = Solution.taskOf(solution.action(randomVid, random.nextInt(length)));
 
 		int j = 0;
 		while (j++ < 10000) {
-			int iP = random.nextInt(lenght - 1) + 1;
-			int iD = random.nextInt(lenght - iP) + iP + 1;
-			ActionEntry[] a = ActionEntry.copy(solution);
-			boolean valid = changeTaskOrder(a, vehicles, randomVid, t, iP, iD);
-			if (valid) {
-				return a;
+			int times = granular.draw(solution, t, randomVid, random);
+			Move m = changeTaskOrder(solution, t, GranularNeighborhood.pickupTime(times),
+					GranularNeighborhood.deliveryTime(times));
+			if (m != null) {
+				return m;
 			}
 		}
-		return solution;
+		return null;
 	}
 
 	/**
@@ -494,26 +992,15 @@ public class CentralizedPlanning {
 	 * @param vehicles
 	 * @return
 	 */
-	private ActionEntry[] computeRandomChangeV(ActionEntry[] solution, List<Vehicle> vehicles) {
-		int randomVid = random.nextInt(solution.length);
-		while (solution[randomVid].next == null) {
-			randomVid = random.nextInt(solution.length);
+	private Move computeRandomChangeV(Solution solution, List<Vehicle> vehicles, Random random) {
+		if (vehicles.size() < 2) {
+			return null;
 		}
-
-		// compute length
-		ActionEntry c = solution[randomVid].next;
-		while (c.next != null) {
-			c = c.next;
-		}
-		int lenght = c.time;
+		int randomVid = randomVehicleWithTasks(solution, random);
 
 		// pick random task
-		int tId = random.nextInt(lenght) + 1;
-		c = solution[randomVid].next;
-		while (c.time != tId) {
-			c = c.next;
-		}
-		Task t = c.task;
+		int length = solution.size(randomVid);
+		int t = Solution.taskOf(solution.action(randomVid, random.nextInt(length)));
 
 		int i = 0;
 		while (i++ < 1000) {
@@ -521,148 +1008,56 @@ public class CentralizedPlanning {
 			if (vId == randomVid) {
 				continue;
 			}
-			ActionEntry[] a = ActionEntry.copy(solution);
-			boolean valid = changeVTask(a, vehicles, t, randomVid, vId);
-			if (valid) {
-				ActionEntry c2 = a[vId].next;
-				while (c2.next != null) {
-					c2 = c2.next;
-				}
-				int lenght2 = c2.time;
-				int iP = random.nextInt(lenght2 - 1) + 1;
-				int iD = random.nextInt(lenght2 - iP) + iP + 1;
-				boolean valid2 = changeTaskOrder(a, vehicles, vId, t, iP, iD);
-
-				if (valid2) {
-					return a;
-				}
+			int times = granular.draw(solution, t, vId, random);
+			Move m = changeVTask(solution, t, vId, GranularNeighborhood.pickupTime(times),
+					GranularNeighborhood.deliveryTime(times));
+			if (m != null) {
+				return m;
 			}
 		}
 		// no neighbors where valid
-		return solution;
+		return null;
 	}
 
 	/**
-	 * Change the order of tasks inside a vehicle
-	 *
-	 * @return true if the change is valid
+	 * @param solution a solution with at least one task
+	 * @return a random vehicle that has at least one task
 	 */
-	private boolean changeTaskOrder(ActionEntry[] a, List<Vehicle> vehicles, int randomVid, Task task, int iP, int iD) {
-
-		ActionEntry pick = a[randomVid].next;
-		while (pick.task != task) {
-			pick = pick.next;
-		}
-		ActionEntry deli = pick.next;
-		while (deli.task != pick.task) {
-			deli = deli.next;
-		}
-
-		// if the order is the same as solution
-		if (iP == pick.time && iD == deli.time) {
-			iD++;
-			return false;
-		}
-		pick.remove();
-		deli.remove();
-		a[randomVid].updateTimeAndLoad(vehicles.get(randomVid).capacity());
-
-		ActionEntry next = a[randomVid];
-		while (next.time != iP - 1) {
-			next = next.next;
-		}
-		next.add(pick);
-		pick.time = next.time;
-		next = pick;
-		while (next.time != iD - 2) {
-			next = next.next;
+	private int randomVehicleWithTasks(Solution solution, Random random) {
+		int randomVid = random.nextInt(solution.vehicleCount());
+		while (solution.size(randomVid) == 0) {
+			randomVid = random.nextInt(solution.vehicleCount());
 		}
-		next.add(deli);
-
-		// if valid add to neighbors
-		return a[randomVid].updateTimeAndLoad(vehicles.get(randomVid).capacity());
+		return randomVid;
 	}
 
 	/**
-	 * move a task from one vehicle to another
-	 * 
-	 * @param a
-	 * @param vehicles
-	 * @param t        tasks
-	 * @param from     vehicle to pick the task from
-	 * @param to       vehicle where to put the task
-	 * @return true if the solution is valid
-	 */
-	private boolean changeVTask(ActionEntry[] a, List<Vehicle> vehicles, Task t, int from, int to) {
-		ActionEntry toMoveP = a[from].next;
-
-		// Find the delivery of the task
-		while (toMoveP.task != t) {
-			// faster
-			toMoveP = toMoveP.next;
-		}
-
-		ActionEntry toMoveD = toMoveP.next;
-
-		// Find the delivery of the task
-		while (toMoveP.task != toMoveD.task) {
-			// faster
-			toMoveD = toMoveD.next;
-		}
-
-		// remove them from first vehicle
-		toMoveD.remove();
-		toMoveP.remove();
-
-		// add them to new vehicle
-		a[to].add(toMoveP);
-		toMoveP.add(toMoveD);
-
-		// update time and load, if valid add to neighbors
-		boolean valid = a[to].updateTimeAndLoad(vehicles.get(to).capacity());
-		valid &= a[from].updateTimeAndLoad(vehicles.get(from).capacity());
-		return valid;
-	}
-
-	/**
-	 * Select one neighbors amongst all the neighbors
+	 * Change the order of a task inside its vehicle
 	 *
-	 * @return the selected neighbor
+	 * @return the move, or null if the change is not valid
 	 */
-	private ActionEntry[] selecBestNeighbor(List<ActionEntry[]> neighbors, List<Vehicle> vehicles) {
+	private Move changeTaskOrder(Solution a, int t, int iP, int iD) {
+		int vId = a.vehicleOf(t);
 
-		ActionEntry[] best = null;
-		double bestCost = Double.POSITIVE_INFINITY;
-		for (ActionEntry[] a : neighbors) {
-			double cost = computeCost(a, vehicles);
-			if (cost < bestCost) {
-				bestCost = cost;
-				best = a;
-			}
+		// if the order is the same as solution
+		if (a.isAt(t, vId, iP, iD)) {
+			return null;
 		}
-
-		return best;
-
+		return Move.evaluate(a, t, vId, iP, iD);
 	}
 
 	/**
-	 * @param actions
-	 * @param vehicles
-	 * @return
+	 * move a task from one vehicle to another
+	 * 
+	 * @param a
+	 * @param t  task
+	 * @param to vehicle where to put the task
+	 * @param iP time of the pickup in the new vehicle
+	 * @param iD time of the delivery in the new vehicle
+	 * @return the move, or null if the solution would not be valid
 	 */
-	private double computeCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-		double sum = 0;
-		int i = 0;
-		double max = 0;
-		for (ActionEntry a : actions) {
-			double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
-			sum += cost;
-			if (max < cost) {
-				max = cost;
-			}
-			i++;
-		}
-		return sum;
+	private Move changeVTask(Solution a, int t, int to, int iP, int iD) {
+		return Move.evaluate(a, t, to, iP, iD);
 	}
 
 	/**
@@ -670,15 +1065,8 @@ public class CentralizedPlanning {
 	 * @param vehicles
 	 * @return the sum of vehicles cost
 	 */
-	private double computeSumCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-		double sum = 0;
-		int i = 0;
-		for (ActionEntry a : actions) {
-			double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
-			sum += cost;
-			i++;
-		}
-		return sum;
+	private double computeSumCost(Solution actions, List<Vehicle> vehicles) {
+		return actions.cost();
 	}
 
 	/**
@@ -686,15 +1074,13 @@ public class CentralizedPlanning {
 	 * @param vehicles
 	 * @return the maximum vehicleCost
 	 */
-	private double computeMaxCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-		int i = 0;
+	private double computeMaxCost(Solution actions, List<Vehicle> vehicles) {
 		double max = 0;
-		for (ActionEntry a : actions) {
-			double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
+		for (int i = 0; i < actions.vehicleCount(); i++) {
+			double cost = actions.vehicleCost(i);
 			if (max < cost) {
 				max = cost;
 			}
-			i++;
 		}
 		return max;
 	}
@@ -0,0 +1,291 @@
+package helpers;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import ilog.concert.IloException;
+import ilog.solver.IlcGoal;
+import ilog.solver.IlcIntChooseVariableHeuristic;
+import ilog.solver.IlcIntExpr;
+import ilog.solver.IlcIntSelectValueHeuristic;
+import ilog.solver.IlcIntVar;
+import ilog.solver.IlcSearchLimit;
+import ilog.solver.IlcSolver;
+import logist.simulation.Vehicle;
+
+/**
+ * Constraint programming search with the bundled JSolver: a large neighborhood search whose neighborhoods are explored
+ * by branch and bound over a successor model.
+ * <p>
+ * The nodes are the actions, one start and one end per vehicle. Every action and start has a successor variable, all
+ * different, and every node a vehicle, a rank and a load variable which are propagated along the successors. A task is
+ * picked up and delivered by the same vehicle, with a smaller rank for the pickup, and no load may exceed the capacity
+ * of the vehicle. The cost of an arc depends on its vehicle and is scaled to an integer.
+ * <p>
+ * The model is built once. At each iteration a few related tasks are relaxed: the successors of the best solution are
+ * fixed, except around the actions of these tasks, and the cost must drop. The free successors are then searched with
+ * the smallest domain first and the closest successor first, within a limited number of choice points. Propagation
+ * discards the insertions that break a capacity or a precedence before they are tried.
+ */
+public class ConstraintSearch {
+
+	// Arc costs are rounded to 1 / SCALE
+	private static final int SCALE = 10;
+	// Share of the distance added at most to the successors at random when choosing the closest one
+	private static final double NOISE = 0.1;
+	// Number of tasks relaxed per iteration and limit of choice points of the search of their neighborhood
+	private static final int RELAXED_TASKS = 5;
+	private static final int CHOICE_POINTS = 50;
+	// Time in millisecond left before the deadline to end the search and free the model
+	private static final long END_MILLIS = 50;
+
+	private final TopologyIndex index;
+	private final Removal relaxation;
+
+	/**
+	 * @param index the distances of the topology
+	 */
+	public ConstraintSearch(TopologyIndex index) {
+		this.index = index;
+		this.relaxation = new ShawRemoval(index);
+	}
+
+	/**
+	 * Search a cheaper solution until the deadline
+	 *
+	 * @param vehicles  the vehicles of the company
+	 * @param start     the solution to start from, containing at least one task, left untouched
+	 * @param random    the random generator of the search
+	 * @param scheduler the deadline of the search
+	 * @return the best solution found
+	 */
+	public Solution search(List<Vehicle> vehicles, Solution start, Random random, DeadlineScheduler scheduler) {
+		int n = start.taskCount();
+		int nVehicles = vehicles.size();
+		int nActions = 2 * n;
+		// actions, then the start and the end of each vehicle
+		int nNodes = nActions + 2 * nVehicles;
+		int[] cities = new int[nNodes];
+		int[] weights = new int[nNodes];
+		for (int t = 0; t < n; t++) {
+			cities[Solution.pickup(t)] = start.task(t).pickupCity.id;
+			cities[Solution.delivery(t)] = start.task(t).deliveryCity.id;
+			weights[Solution.pickup(t)] = start.task(t).weight;
+			weights[Solution.delivery(t)] = -start.task(t).weight;
+		}
+		int[] capacities = new int[nVehicles];
+		int maxCapacity = 0;
+		for (int v = 0; v < nVehicles; v++) {
+			cities[nActions + v] = vehicles.get(v).homeCity().id;
+			capacities[v] = vehicles.get(v).capacity();
+			maxCapacity = Math.max(maxCapacity, capacities[v]);
+		}
+
+		// cost of the arc from node i to node j in vehicle v at index v * nNodes + j, nothing to reach an end
+		int[][] arcCosts = new int[nActions + nVehicles][nVehicles * nNodes];
+		for (int i = 0; i < arcCosts.length; i++) {
+			for (int v = 0; v < nVehicles; v++) {
+				for (int j = 0; j < nActions; j++) {
+					arcCosts[i][v * nNodes + j] = (int) Math.round(SCALE * vehicles.get(v).costPerKm()
+							* index.distance(cities[i], cities[j]));
+				}
+			}
+		}
+
+		Solution best = start;
+		try {
+			IlcSolver solver = new IlcSolver();
+			IlcIntVar[] next = new IlcIntVar[nActions + nVehicles];
+			IlcIntVar[] vehicle = new IlcIntVar[nNodes];
+			IlcIntVar[] rank = new IlcIntVar[nNodes];
+			IlcIntVar[] load = new IlcIntVar[nNodes];
+			Map<IlcIntExpr, Integer> nodes = new IdentityHashMap<>();
+
+			// successors are actions or ends
+			int[] domain = new int[nActions + nVehicles];
+			for (int j = 0; j < nActions; j++) {
+				domain[j] = j;
+			}
+			for (int v = 0; v < nVehicles; v++) {
+				domain[nActions + v] = nActions + nVehicles + v;
+			}
+			for (int i = 0; i < nNodes; i++) {
+				if (i < next.length) {
+					next[i] = solver.intVar(domain);
+					nodes.put(next[i], i);
+				}
+				boolean fixed = i >= nActions;
+				boolean first = fixed && i < nActions + nVehicles;
+				int v = (i - nActions) % nVehicles;
+				vehicle[i] = fixed ? solver.intVar(v, v) : solver.intVar(0, nVehicles - 1);
+				rank[i] = first ? solver.intVar(0, 0) : solver.intVar(1, nActions + 1);
+				load[i] = first ? solver.intVar(0, 0) : solver.intVar(0, maxCapacity);
+			}
+
+			IlcIntExpr[] costs = new IlcIntExpr[next.length];
+			for (int i = 0; i < next.length; i++) {
+				solver.add(solver.neq(next[i], i));
+				solver.add(solver.eq(solver.element(vehicle, next[i]), vehicle[i]));
+				solver.add(solver.eq(solver.element(rank, next[i]), solver.sum(rank[i], 1)));
+				solver.add(solver.eq(solver.element(load, next[i]),
+						solver.sum(load[i], solver.element(weights, next[i]))));
+				costs[i] = solver.element(arcCosts[i], solver.sum(solver.prod(vehicle[i], nNodes), next[i]));
+			}
+			solver.add(solver.allDiff(next));
+			for (int i = 0; i < nActions; i++) {
+				solver.add(solver.le(load[i], solver.element(capacities, vehicle[i])));
+			}
+			for (int t = 0; t < n; t++) {
+				solver.add(solver.eq(vehicle[Solution.pickup(t)], vehicle[Solution.delivery(t)]));
+				solver.add(solver.le(solver.sum(rank[Solution.pickup(t)], 1), rank[Solution.delivery(t)]));
+			}
+
+			IlcIntExpr objective = solver.sum(costs);
+			solver.add(solver.minimize(objective));
+
+			IlcIntChooseVariableHeuristic smallestDomain = new IlcIntChooseVariableHeuristic() {
+				@Override
+				public int evaluate(IlcIntExpr e) {
+					return e.getDomainSize();
+				}
+			};
+			IlcIntSelectValueHeuristic closest = new IlcIntSelectValueHeuristic() {
+				@Override
+				public int select(IlcIntExpr e) {
+					int from = cities[nodes.get(e)];
+					int selected = e.getDomainMin();
+					double selectedDistance = Double.POSITIVE_INFINITY;
+					for (int j = e.getDomainMin(); j <= e.getDomainMax(); j = e.getNextHigher(j)) {
+						// ends come last
+						double d = j < nActions ? index.distance(from, cities[j]) * (1. + NOISE * random.nextDouble())
+								: Double.MAX_VALUE;
+						if (d < selectedDistance) {
+							selected = j;
+							selectedDistance = d;
+						}
+						if (j == e.getDomainMax()) {
+							break;
+						}
+					}
+					return selected;
+				}
+			};
+			long stop = scheduler.deadlineMillis() - END_MILLIS;
+			int[] choicePoints = new int[1];
+			IlcSearchLimit limit = new IlcSearchLimit(solver) {
+				@Override
+				public boolean check() {
+					return ++choicePoints[0] > CHOICE_POINTS || scheduler.expired() || System.currentTimeMillis() > stop;
+				}
+
+				@Override
+				public void initLimit() {
+				}
+			};
+
+			int[] successors = new int[next.length];
+			boolean[] free = new boolean[next.length];
+			// an iteration cannot be interrupted while the fixed successors propagate, so none starts too late
+			long slowest = 0;
+			while (!scheduler.expired() && System.currentTimeMillis() + slowest < stop) {
+				long begin = System.currentTimeMillis();
+				// relax related tasks of the best solution
+				successors(best, successors);
+				Solution relaxed = best.copy();
+				relaxation.remove(relaxed, Math.min(RELAXED_TASKS, n), random);
+				for (int i = 0; i < next.length; i++) {
+					int j = successors[i];
+					free[i] = isRelaxed(relaxed, i) || (j < nActions && isRelaxed(relaxed, j));
+				}
+				int bound = scaledCost(best, arcCosts, nNodes) - 1;
+				IlcGoal fix = new IlcGoal() {
+					@Override
+					public IlcGoal execute(IlcSolver s) {
+						objective.setDomainMax(bound);
+						for (int i = 0; i < next.length; i++) {
+							if (!free[i]) {
+								next[i].setDomainValue(successors[i]);
+							}
+						}
+						return null;
+					}
+				};
+
+				choicePoints[0] = 0;
+				solver.newSearch(solver.limitSearch(solver.and(fix, solver.generate(next, smallestDomain, closest)),
+						limit));
+				while (solver.next()) {
+					best = toSolution(start, next, nActions, nVehicles);
+					scheduler.improved(best, best.cost());
+				}
+				solver.endSearch();
+				slowest = Math.max(slowest, System.currentTimeMillis() - begin);
+			}
+		} catch (IloException e) {
+			throw new IllegalStateException("Constraint search failed", e);
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if node i is an action of a task unassigned in the relaxed solution
+	 */
+	private static boolean isRelaxed(Solution relaxed, int i) {
+		return i < 2 * relaxed.taskCount() && relaxed.vehicleOf(Solution.taskOf(i)) == Solution.UNASSIGNED;
+	}
+
+	/**
+	 * Fill the successor of each action and start of a solution in the model
+	 */
+	private static void successors(Solution solution, int[] successors) {
+		int nActions = 2 * solution.taskCount();
+		int nVehicles = solution.vehicleCount();
+		for (int v = 0; v < nVehicles; v++) {
+			int from = nActions + v;
+			for (int i = 0; i < solution.size(v); i++) {
+				successors[from] = solution.action(v, i);
+				from = successors[from];
+			}
+			successors[from] = nActions + nVehicles + v;
+		}
+	}
+
+	/**
+	 * @return the objective of the model for a solution
+	 */
+	private static int scaledCost(Solution solution, int[][] arcCosts, int nNodes) {
+		int nActions = 2 * solution.taskCount();
+		int cost = 0;
+		for (int v = 0; v < solution.vehicleCount(); v++) {
+			int from = nActions + v;
+			for (int i = 0; i < solution.size(v); i++) {
+				int to = solution.action(v, i);
+				cost += arcCosts[from][v * nNodes + to];
+				from = to;
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Follow the successors from the start of each vehicle
+	 */
+	private static Solution toSolution(Solution start, IlcIntVar[] next, int nActions, int nVehicles) {
+		Solution solution = start.copy();
+		for (int t = 0; t < solution.taskCount(); t++) {
+			solution.removeTask(t);
+		}
+		solution.commit();
+		int[] sequence = new int[nActions];
+		for (int v = 0; v < nVehicles; v++) {
+			int length = 0;
+			for (int i = next[nActions + v].getDomainValue(); i < nActions; i = next[i].getDomainValue()) {
+				sequence[length++] = i;
+			}
+			solution.appendActions(v, sequence, length);
+		}
+		return solution;
+	}
+}
@@ -0,0 +1,25 @@
+package helpers;
+
+/**
+ * Construction heuristic that builds the solution the stochastic local search starts from
+ */
+public interface Construction {
+
+	/**
+	 * @return The name of the construction
+	 */
+	public default String name() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * Schedule every unassigned task of a solution
+	 *
+	 * @param solution the solution to complete, modified in place
+	 * @param deadline the time in millisecond after which the construction gives up
+	 * @return false if the construction gave up before scheduling every task
+	 * @throws IllegalStateException if a task cannot be carried by any vehicle
+	 */
+	public boolean build(Solution solution, long deadline);
+
+}
@@ -0,0 +1,146 @@
+package helpers;
+
+/**
+ * Deadline of an iterative search.
+ * <p>
+ * The clock is only read once per batch of iterations. The size of a batch follows the measured iteration rate so that
+ * the clock is read about every CHECK_INTERVAL nanoseconds, and the same rate tells whether the next batch would end
+ * after the deadline. The search stops a safety margin before its timeout, which leaves time to build and return the
+ * plan.
+ */
+public class DeadlineScheduler {
+
+	// Time kept after the search, in share of the timeout and at least in millisecond
+	private static final double MARGIN_FACTOR = 0.02;
+	private static final long MIN_MARGIN_MILLIS = 25;
+	// Time between two reads of the clock
+	private static final long CHECK_INTERVAL = 500_000L;
+
+	private final long start;
+	private final long end;
+	private final AnytimeSearch search;
+
+	private long iterations;
+	private long nextCheck = 1;
+	private long lastCheck;
+	private long lastIterations;
+	private long now;
+	private boolean sampled;
+
+	/**
+	 * @param timeStart the time in millisecond at which the search started
+	 * @param timeout   the time in millisecond given to the search
+	 */
+	public DeadlineScheduler(long timeStart, long timeout) {
+		this(timeStart, timeout, null);
+	}
+
+	/**
+	 * @param timeStart the time in millisecond at which the search started
+	 * @param timeout   the time in millisecond given to the search
+	 * @param search    the shuffle the search belongs to, which can stop it before the deadline, may be null
+	 */
+	public DeadlineScheduler(long timeStart, long timeout, AnytimeSearch search) {
+		this.search = search;
+		long margin = margin(timeout);
+		long elapsed = System.currentTimeMillis() - timeStart;
+		this.start = System.nanoTime() - elapsed * 1_000_000L;
+		this.end = start + (timeout - margin) * 1_000_000L;
+		this.now = start + elapsed * 1_000_000L;
+		this.lastCheck = now;
+	}
+
+	/**
+	 * @param timeout the time in millisecond given to a search
+	 * @return the time in millisecond kept after the search to build and return its result
+	 */
+	public static long margin(long timeout) {
+		return Math.max(MIN_MARGIN_MILLIS, Math.round(timeout * MARGIN_FACTOR));
+	}
+
+	/**
+	 * Count one iteration
+	 *
+	 * @return false once the search must stop, is cancelled or its thread is interrupted
+	 */
+	public boolean next() {
+		iterations++;
+		sampled = iterations >= nextCheck;
+		if (!sampled) {
+			return true;
+		}
+
+		now = System.nanoTime();
+
+		// size the next batch from the duration of the last one
+		double nanosPerIteration = (double) Math.max(now - lastCheck, 1) / (iterations - lastIterations);
+		lastCheck = now;
+		lastIterations = iterations;
+		long size = Math.max(1, (long) (CHECK_INTERVAL / nanosPerIteration));
+		nextCheck = iterations + size;
+
+		// stop before a batch could end after the deadline, or when the search is cancelled
+		return now + size * nanosPerIteration < end && !Thread.currentThread().isInterrupted()
+				&& (search == null || !search.stopped(now, progress()));
+	}
+
+	/**
+	 * Read the clock without counting an iteration, for the searches whose steps are too long to be batched
+	 *
+	 * @return true once the search must stop, is cancelled or its thread is interrupted
+	 */
+	public boolean expired() {
+		now = System.nanoTime();
+		return now >= end || Thread.currentThread().isInterrupted()
+				|| (search != null && search.stopped(now, progress()));
+	}
+
+	/**
+	 * Report a new best solution of the search, which is published to the shuffle and delays the stop of a stable
+	 * search
+	 *
+	 * @param solution the solution, in its current state, left untouched
+	 * @param cost     its cost
+	 */
+	public void improved(Solution solution, double cost) {
+		if (search != null) {
+			search.improved(solution, cost);
+		}
+	}
+
+	/**
+	 * @return true if the last call to next read the clock, the estimates have then been updated
+	 */
+	public boolean sampled() {
+		return sampled;
+	}
+
+	/**
+	 * @return the number of iterations done so far
+	 */
+	public long iterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return the share of the search time elapsed at the last read of the clock, between 0 and 1
+	 */
+	public double progress() {
+		// a timeout shorter than the margin leaves no search time, the search is then already over
+		return Math.min(1., (double) (now - start) / Math.max(end - start, 1L));
+	}
+
+	/**
+	 * @return the time in millisecond elapsed since the start of the search at the last read of the clock
+	 */
+	public long elapsedMillis() {
+		return (now - start) / 1_000_000L;
+	}
+
+	/**
+	 * @return the time in millisecond, on the System.currentTimeMillis clock, at which the search must stop
+	 */
+	public long deadlineMillis() {
+		return System.currentTimeMillis() + (end - System.nanoTime()) / 1_000_000L;
+	}
+}
@@ -0,0 +1,203 @@
+package helpers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+
+/**
+ * Exact solver for small sets of tasks, over all the vehicles.
+ * <p>
+ * The vehicles are planned one after the other: the current vehicle either picks up a task that fits, delivers a task
+ * it carries or, when it is empty, ends its route and hands over to the next vehicle at its home. The cheapest cost to
+ * complete the plan only depends on the current vehicle, its city and the state of each task (waiting, carried or
+ * delivered), so the depth-first search memoizes it for each of these states. This takes time in the number of
+ * vehicles times the number of cities times 3^n, which is only practical for a few tasks: the search gives up when the
+ * states exceed MAX_STATES or when its deadline passes. A solver must not be shared between threads.
+ */
+public class ExactSolver {
+
+	// Choices stored for each state
+	private static final byte UNKNOWN = -2;
+	private static final byte NEXT_VEHICLE = -1;
+	// Largest number of states stored, 9 bytes each so about 19 MB: the 8 tasks allowed by the largest sls-exact
+	// setting fit with up to 16 vehicles in 20 cities
+	private static final long MAX_STATES = 1L << 21;
+	// Number of new states between two reads of the clock
+	private static final int CHECK_STATES = 1 << 14;
+
+	private final TopologyIndex index;
+
+	private int n;
+	private int nCities;
+	private int nVehicles;
+	private int[] pickupCities;
+	private int[] deliveryCities;
+	private int[] weights;
+	private int[] homes;
+	private int[] capacities;
+	private double[] costsPerKm;
+	// powers[t] = 3^t, the weight of the state of task t in the index of a state
+	private int[] powers;
+	private double[] costs;
+	private byte[] choices;
+	private DeadlineScheduler scheduler;
+	private int newStates;
+	private boolean expired;
+
+	/**
+	 * @param index the distances of the topology
+	 */
+	public ExactSolver(TopologyIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Find an optimal plan of the tasks of a solution
+	 *
+	 * @param vehicles  the vehicles of the company
+	 * @param solution  a solution containing the tasks to plan, whatever their assignment, left untouched
+	 * @param scheduler the deadline of the search
+	 * @return an optimal solution with the same task indices, or null if no vehicle can carry one of the tasks, if
+	 *         there are too many states or if the deadline passed
+	 */
+	public Solution solve(List<Vehicle> vehicles, Solution solution, DeadlineScheduler scheduler) {
+		n = solution.taskCount();
+		nCities = index.size();
+		nVehicles = vehicles.size();
+		// counted as a long, the products overflowing an int from 20 tasks
+		long states = (long) nVehicles * nCities * (long) Math.pow(3, Math.min(n, 20));
+		if (states > MAX_STATES) {
+			return null;
+		}
+		this.scheduler = scheduler;
+		this.newStates = 0;
+		this.expired = false;
+
+		Task[] tasks = new Task[n];
+		pickupCities = new int[n];
+		deliveryCities = new int[n];
+		weights = new int[n];
+		powers = new int[n + 1];
+		powers[0] = 1;
+		for (int t = 0; t < n; t++) {
+			tasks[t] = solution.task(t);
+			pickupCities[t] = tasks[t].pickupCity.id;
+			deliveryCities[t] = tasks[t].deliveryCity.id;
+			weights[t] = tasks[t].weight;
+			powers[t + 1] = 3 * powers[t];
+		}
+		homes = new int[nVehicles];
+		capacities = new int[nVehicles];
+		costsPerKm = new double[nVehicles];
+		for (int v = 0; v < nVehicles; v++) {
+			homes[v] = vehicles.get(v).homeCity().id;
+			capacities[v] = vehicles.get(v).capacity();
+			costsPerKm[v] = vehicles.get(v).costPerKm();
+		}
+
+		costs = new double[nVehicles * nCities * powers[n]];
+		choices = new byte[costs.length];
+		Arrays.fill(choices, UNKNOWN);
+		if (cost(0, homes[0], 0) == Double.POSITIVE_INFINITY || expired) {
+			return null;
+		}
+		return rebuild(vehicles, tasks);
+	}
+
+	/**
+	 * @param v     the current vehicle
+	 * @param city  the city of the current vehicle
+	 * @param state the state of the tasks, the digit of task t in base 3 being 0 if waiting, 1 if carried by v and 2
+	 *              if delivered
+	 * @return the cheapest cost to deliver all the remaining tasks
+	 */
+	private double cost(int v, int city, int state) {
+		int key = key(v, city, state);
+		if (choices[key] != UNKNOWN) {
+			return costs[key];
+		}
+		if (++newStates % CHECK_STATES == 0) {
+			expired |= scheduler.expired();
+		}
+		if (expired) {
+			// unwind without storing anything
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double best = Double.POSITIVE_INFINITY;
+		byte choice = NEXT_VEHICLE;
+		if (state == powers[n] - 1) {
+			// all the tasks are delivered
+			best = 0.;
+		} else {
+			int load = 0;
+			for (int t = 0; t < n; t++) {
+				if (digit(state, t) == 1) {
+					load += weights[t];
+				}
+			}
+			for (int t = 0; t < n; t++) {
+				int digit = digit(state, t);
+				if (digit == 2 || (digit == 0 && load + weights[t] > capacities[v])) {
+					continue;
+				}
+				int next = digit == 0 ? pickupCities[t] : deliveryCities[t];
+				double c = costsPerKm[v] * index.distance(city, next) + cost(v, next, state + powers[t]);
+				if (c < best) {
+					best = c;
+					choice = (byte) t;
+				}
+			}
+			if (load == 0 && v + 1 < nVehicles) {
+				double c = cost(v + 1, homes[v + 1], state);
+				if (c < best) {
+					best = c;
+					choice = NEXT_VEHICLE;
+				}
+			}
+		}
+		costs[key] = best;
+		choices[key] = choice;
+		return best;
+	}
+
+	/**
+	 * Follow the optimal choices from the start
+	 */
+	private Solution rebuild(List<Vehicle> vehicles, Task[] tasks) {
+		Solution solution = new Solution(vehicles, tasks, index);
+		int[] sequence = new int[2 * n];
+		int v = 0;
+		int city = homes[0];
+		int state = 0;
+		int length = 0;
+		while (true) {
+			byte choice = choices[key(v, city, state)];
+			if (choice == NEXT_VEHICLE || state == powers[n] - 1) {
+				solution.appendActions(v, sequence, length);
+				if (state == powers[n] - 1) {
+					return solution;
+				}
+				v++;
+				city = homes[v];
+				length = 0;
+				continue;
+			}
+			int t = choice;
+			boolean pickup = digit(state, t) == 0;
+			sequence[length++] = pickup ? Solution.pickup(t) : Solution.delivery(t);
+			city = pickup ? pickupCities[t] : deliveryCities[t];
+			state += powers[t];
+		}
+	}
+
+	private int key(int v, int city, int state) {
+		return (v * nCities + city) * powers[n] + state;
+	}
+
+	private int digit(int state, int t) {
+		return state / powers[t] % 3;
+	}
+}
@@ -0,0 +1,76 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Random insertion positions restricted to the neighborhood of a task.
+ * <p>
+ * The pickup of a task is only inserted right after an action, or the home of the vehicle, located in one of the k
+ * nearest cities of its pickup city, and likewise for the delivery. The delivery may also directly follow the pickup.
+ * The positions are drawn uniformly among the candidates by rejection: a uniform position is kept if it qualifies, and
+ * at most TRIES_PER_CITY * k positions are tried, so a draw takes O(k) time whatever the length of the route and
+ * allocates nothing. When no tried position qualifies, the pickup is drawn uniformly and the delivery directly follows
+ * it.
+ */
+public class GranularNeighborhood {
+
+	private static final int TRIES_PER_CITY = 8;
+
+	private final TopologyIndex index;
+	private final int k;
+
+	/**
+	 * @param index the distances of the topology
+	 * @param k     the number of nearest cities, the city of the action included, after which an action may be inserted
+	 */
+	public GranularNeighborhood(TopologyIndex index, int k) {
+		this.index = index;
+		this.k = k;
+	}
+
+	/**
+	 * Draw the times of a move of a task into a vehicle, which may be its own vehicle
+	 *
+	 * @return the pickup and delivery times packed with {@link #pack(int, int)}
+	 */
+	public int draw(Solution solution, int t, int v, Random random) {
+		int n = solution.size(v) + (solution.vehicleOf(t) == v ? 0 : 2);
+		int pick = solution.task(t).pickupCity.id;
+		int deli = solution.task(t).deliveryCity.id;
+
+		int tries = TRIES_PER_CITY * k;
+		int iP = -1;
+		for (int j = 0; j < tries && iP < 0; j++) {
+			int i = random.nextInt(n - 1);
+			if (index.isNear(pick, solution.cityBefore(t, v, i), k)) {
+				iP = i;
+			}
+		}
+		if (iP < 0) {
+			iP = random.nextInt(n - 1);
+		}
+
+		// the action before a delivery at time i > iP + 1 is the one at time i - 2 without the task
+		int iD = iP + 1;
+		for (int j = 0; j < tries; j++) {
+			int i = iP + 1 + random.nextInt(n - iP - 1);
+			if (i == iP + 1 || index.isNear(deli, solution.cityBefore(t, v, i - 1), k)) {
+				iD = i;
+				break;
+			}
+		}
+		return pack(iP, iD);
+	}
+
+	public static int pack(int pickupTime, int deliveryTime) {
+		return pickupTime << 16 | deliveryTime;
+	}
+
+	public static int pickupTime(int times) {
+		return times >>> 16;
+	}
+
+	public static int deliveryTime(int times) {
+		return times & 0xFFFF;
+	}
+}
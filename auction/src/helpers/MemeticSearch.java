@@ -0,0 +1,234 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Memetic search run by one island of the portfolio: a small population evolves by route-based crossover, mutation
+ * and local search.
+ * <p>
+ * A child copies a first parent and inherits one whole route of a second parent: the tasks of that route and of the
+ * child's route of the same vehicle are removed, the inherited route is rebuilt in the order of the second parent and
+ * the other removed tasks are put back by cheapest insertion. The child then descends with task relocations and
+ * replaces the worst member of the population when it is cheaper and not already in it. Every MIGRATION generations
+ * the island publishes its best solution and imports the best one of all islands.
+ */
+public class MemeticSearch {
+
+	private static final int POPULATION = 10;
+	private static final int MIGRATION = 20;
+	// Share of the tasks removed and reinserted by a mutation
+	private static final double MUTATION_SHARE = 0.2;
+	private static final double MUTATION_PROBA = 0.3;
+	// A relocation must save at least that much to be applied by the local search
+	private static final double EPSILON = 1e-9;
+
+	private final Solution[] population = new Solution[POPULATION];
+	private final double[] costs = new double[POPULATION];
+	private final Construction reinsertion = new RegretInsertion(1);
+	private final Removal mutation = new RandomRemoval();
+	private final MoveCursor cursor = new MoveCursor();
+
+	/**
+	 * Search a cheaper solution until the deadline
+	 *
+	 * @param start     the solution to start from, containing at least one task, left untouched
+	 * @param random    the random generator of the island
+	 * @param scheduler the deadline of the island
+	 * @param islands   the best solution of all islands, used for the migrations
+	 * @return the best solution found
+	 */
+	public Solution search(Solution start, Random random, DeadlineScheduler scheduler, AnytimeSearch islands) {
+		long deadline = scheduler.deadlineMillis();
+		population[0] = start.copy();
+		costs[0] = descend(population[0], population[0].cost(), random, scheduler);
+		for (int i = 1; i < POPULATION; i++) {
+			if (scheduler.expired()) {
+				// the members are never modified in place, so they can be shared
+				population[i] = population[0];
+				costs[i] = costs[0];
+				continue;
+			}
+			population[i] = start.copy();
+			mutate(population[i], random, deadline);
+			costs[i] = descend(population[i], population[i].cost(), random, scheduler);
+		}
+		int best = best();
+		scheduler.improved(population[best], costs[best]);
+
+		for (int generation = 1; scheduler.next(); generation++) {
+			Solution child = population[tournament(random)].copy();
+			if (!crossover(child, population[tournament(random)], random, deadline)) {
+				continue;
+			}
+			if (random.nextDouble() < MUTATION_PROBA) {
+				mutate(child, random, deadline);
+			}
+			double cost = descend(child, child.cost(), random, scheduler);
+			if (replaceWorst(child, cost) && cost < costs[best]) {
+				best = best();
+				scheduler.improved(child, cost);
+			}
+
+			if (generation % MIGRATION == 0) {
+				islands.offer(population[best], costs[best], true);
+				AnytimeSearch.Incumbent elite = islands.incumbent();
+				if (elite.cost < costs[best] && replaceWorst(elite.solution.copy(), elite.cost)) {
+					best = best();
+				}
+			}
+		}
+		return population[best];
+	}
+
+	/**
+	 * Let the child inherit a random route of the other parent
+	 *
+	 * @return false if the other parent has no task or the removed tasks could not be reinserted in time
+	 */
+	private boolean crossover(Solution child, Solution parent, Random random, long deadline) {
+		if (!parent.hasTasks()) {
+			return false;
+		}
+		int v = random.nextInt(parent.vehicleCount());
+		while (parent.size(v) == 0) {
+			v = random.nextInt(parent.vehicleCount());
+		}
+
+		// empty the route of the child and remove the inherited tasks from the other routes
+		while (child.size(v) > 0) {
+			child.removeTask(Solution.taskOf(child.action(v, 0)));
+		}
+		for (int i = 0; i < parent.size(v); i++) {
+			int a = parent.action(v, i);
+			if (Solution.isPickup(a) && child.vehicleOf(Solution.taskOf(a)) != Solution.UNASSIGNED) {
+				child.removeTask(Solution.taskOf(a));
+			}
+		}
+
+		// rebuild the route in the order of the parent, the tasks being inserted by pickup time
+		for (int i = 0; i < parent.size(v); i++) {
+			int a = parent.action(v, i);
+			if (!Solution.isPickup(a)) {
+				continue;
+			}
+			int t = Solution.taskOf(a);
+			int d = parent.deliveryTime(t);
+			int iP = 0;
+			int iD = 1;
+			for (int k = 0; k < d; k++) {
+				int other = Solution.taskOf(parent.action(v, k));
+				if (other != t && parent.pickupTime(other) < i) {
+					if (k < i) {
+						iP++;
+					}
+					iD++;
+				}
+			}
+			child.moveTask(t, v, iP, iD);
+		}
+
+		boolean done = reinsertion.build(child, deadline);
+		child.commit();
+		return done;
+	}
+
+	/**
+	 * Remove random tasks and put them back by cheapest insertion
+	 */
+	private void mutate(Solution solution, Random random, long deadline) {
+		int count = Math.max(1, (int) (solution.taskCount() * MUTATION_SHARE));
+		solution.commit();
+		mutation.remove(solution, count, random);
+		if (!reinsertion.build(solution, deadline)) {
+			solution.rollback();
+		}
+		solution.commit();
+	}
+
+	/**
+	 * Relocate each task, in random order, to its cheapest position while this saves something and time remains
+	 * <p>
+	 * A pass takes time in the number of tasks times the number of vehicles times the square of the route lengths, so
+	 * the deadline is checked before each task.
+	 *
+	 * @return the cost of the local optimum, or of the solution reached when the search had to stop
+	 */
+	private double descend(Solution solution, double cost, Random random, DeadlineScheduler scheduler) {
+		int nTasks = solution.taskCount();
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int offset = random.nextInt(nTasks);
+			for (int k = 0; k < nTasks; k++) {
+				if (scheduler.expired()) {
+					solution.commit();
+					return cost;
+				}
+				int t = (offset + k) % nTasks;
+				int bestV = -1;
+				int bestP = 0;
+				int bestD = 0;
+				double bestDelta = -EPSILON;
+				for (int v = 0; v < solution.vehicleCount(); v++) {
+					cursor.reset(solution, t, v);
+					while (cursor.next()) {
+						if (cursor.delta() < bestDelta) {
+							bestV = v;
+							bestP = cursor.pickupTime();
+							bestD = cursor.deliveryTime();
+							bestDelta = cursor.delta();
+						}
+					}
+				}
+				if (bestV >= 0) {
+					solution.moveTask(t, bestV, bestP, bestD);
+					cost += bestDelta;
+					improved = true;
+				}
+			}
+		}
+		solution.commit();
+		return cost;
+	}
+
+	/**
+	 * @return true if the solution replaced the worst member of the population
+	 */
+	private boolean replaceWorst(Solution solution, double cost) {
+		int worst = 0;
+		long hash = solution.hash();
+		for (int i = 0; i < POPULATION; i++) {
+			if (population[i].hash() == hash) {
+				return false;
+			}
+			if (costs[i] > costs[worst]) {
+				worst = i;
+			}
+		}
+		if (cost >= costs[worst]) {
+			return false;
+		}
+		population[worst] = solution;
+		costs[worst] = cost;
+		return true;
+	}
+
+	/**
+	 * @return the cheaper of two random members of the population
+	 */
+	private int tournament(Random random) {
+		int a = random.nextInt(POPULATION);
+		int b = random.nextInt(POPULATION);
+		return costs[a] <= costs[b] ? a : b;
+	}
+
+	private int best() {
+		int best = 0;
+		for (int i = 1; i < POPULATION; i++) {
+			if (costs[i] < costs[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+}
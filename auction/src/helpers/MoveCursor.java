@@ -0,0 +1,95 @@
+package helpers;
+
+/**
+ * Lazy enumeration of the feasible moves of a task into one vehicle, without allocating anything per move.
+ * <p>
+ * The pickup and delivery times are walked in order, and the remaining deliveries of a pickup are skipped as soon as
+ * the capacity is exceeded since delivering later only increases the load. The current position of the task is never
+ * returned. The search keeps the descriptor of its best move and calls {@link #move()} only for the winner. A cursor can
+ * be reset for other tasks and vehicles and must not be shared between threads.
+ */
+public class MoveCursor {
+
+	private Solution solution;
+	private int task;
+	private int vehicle;
+	// Number of actions of the vehicle once the task is in it
+	private int n;
+	private int pickupTime;
+	private int deliveryTime;
+	private double delta;
+
+	/**
+	 * Start the enumeration of the moves of a task into a vehicle
+	 *
+	 * @param solution the solution, which must not change during the enumeration
+	 * @param task     the task to move, possibly unassigned
+	 * @param vehicle  the destination vehicle, possibly the one of the task
+	 * @return this cursor, before the first move
+	 */
+	public MoveCursor reset(Solution solution, int task, int vehicle) {
+		this.solution = solution;
+		this.task = task;
+		this.vehicle = vehicle;
+		this.n = solution.size(vehicle) + (solution.vehicleOf(task) == vehicle ? 0 : 2);
+		this.pickupTime = 0;
+		this.deliveryTime = 0;
+		return this;
+	}
+
+	/**
+	 * Advance to the next feasible move
+	 *
+	 * @return false once all the moves were enumerated
+	 */
+	public boolean next() {
+		while (pickupTime < n - 1) {
+			if (++deliveryTime >= n) {
+				pickupTime++;
+				deliveryTime = pickupTime;
+				continue;
+			}
+			if (solution.isAt(task, vehicle, pickupTime, deliveryTime)) {
+				continue;
+			}
+			if (!solution.canMove(task, vehicle, pickupTime, deliveryTime)) {
+				// delivering later only increases the load
+				deliveryTime = n;
+				continue;
+			}
+			delta = solution.moveDelta(task, vehicle, pickupTime, deliveryTime);
+			return true;
+		}
+		return false;
+	}
+
+	public int task() {
+		return task;
+	}
+
+	public int vehicle() {
+		return vehicle;
+	}
+
+	public int pickupTime() {
+		return pickupTime;
+	}
+
+	public int deliveryTime() {
+		return deliveryTime;
+	}
+
+	/**
+	 * @return the cost change of the current move
+	 */
+	public double delta() {
+		return delta;
+	}
+
+	/**
+	 * @return the current move, allocated on demand
+	 */
+	public Move move() {
+		return new Move(task, vehicle, pickupTime, deliveryTime, delta);
+	}
+}
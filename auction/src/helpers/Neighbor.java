@@ -0,0 +1,19 @@
+package helpers;
+
+/**
+ * Neighbor of a solution in the stochastic local search, described by the change it makes and evaluated before it is
+ * applied
+ */
+public interface Neighbor {
+
+	/**
+	 * @return the change of cost when the neighbor is applied
+	 */
+	public double delta();
+
+	/**
+	 * Apply the change to the solution the neighbor was evaluated on
+	 */
+	public void applyTo(Solution s);
+
+}
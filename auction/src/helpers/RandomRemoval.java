@@ -0,0 +1,21 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Remove tasks chosen uniformly at random
+ */
+public class RandomRemoval implements Removal {
+
+	@Override
+	public void remove(Solution solution, int count, Random random) {
+		int[] assigned = Removal.assignedTasks(solution);
+		for (int i = 0; i < count; i++) {
+			int j = i + random.nextInt(assigned.length - i);
+			int t = assigned[j];
+			assigned[j] = assigned[i];
+			assigned[i] = t;
+			solution.removeTask(t);
+		}
+	}
+}
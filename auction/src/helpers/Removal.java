@@ -0,0 +1,80 @@
+package helpers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Destroy operator of the large neighborhood search: some tasks are removed from their vehicle and left unassigned
+ */
+public interface Removal {
+
+	/**
+	 * @return The name of the removal
+	 */
+	public default String name() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * Remove tasks from a solution
+	 *
+	 * @param solution the solution, modified in place
+	 * @param count    the number of tasks to remove, at most the number of assigned tasks
+	 * @param random   the random generator of the search
+	 */
+	public void remove(Solution solution, int count, Random random);
+
+	/**
+	 * @return the tasks of a solution that are carried by a vehicle
+	 */
+	public static int[] assignedTasks(Solution solution) {
+		int[] assigned = new int[solution.taskCount()];
+		int n = 0;
+		for (int t = 0; t < solution.taskCount(); t++) {
+			if (solution.vehicleOf(t) != Solution.UNASSIGNED) {
+				assigned[n++] = t;
+			}
+		}
+		return Arrays.copyOf(assigned, n);
+	}
+
+	/**
+	 * Reorder the first n tasks so that the task of rank k by increasing key is at position k, the tasks before it
+	 * having smaller or equal keys, in linear expected time and without sorting or boxing
+	 *
+	 * @param tasks the tasks, reordered in place
+	 * @param n     the number of tasks considered
+	 * @param keys  the key of each task, indexed by task
+	 * @param k     the rank looked for, smaller than n
+	 */
+	public static void select(int[] tasks, int n, double[] keys, int k) {
+		int lo = 0;
+		int hi = n - 1;
+		while (lo < hi) {
+			double pivot = keys[tasks[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (keys[tasks[i]] < pivot) {
+					i++;
+				}
+				while (keys[tasks[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = tasks[i];
+					tasks[i++] = tasks[j];
+					tasks[j--] = swap;
+				}
+			}
+			// the tasks between j and i have the key of the pivot
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package helpers;
+
+/**
+ * 2-opt neighbor: the actions at times i to j of a vehicle are visited in the reverse order
+ */
+public class Reversal implements Neighbor {
+	public final int vehicle;
+	public final int i;
+	public final int j;
+	private final double delta;
+
+	public Reversal(int vehicle, int i, int j, double delta) {
+		this.vehicle = vehicle;
+		this.i = i;
+		this.j = j;
+		this.delta = delta;
+	}
+
+	/**
+	 * Evaluate a reversal on a solution
+	 *
+	 * @return the reversal with its cost change, or null if it breaks a precedence or the capacity of the vehicle
+	 */
+	public static Reversal evaluate(Solution s, int vehicle, int i, int j) {
+		if (!s.canReverse(vehicle, i, j)) {
+			return null;
+		}
+		return new Reversal(vehicle, i, j, s.reverseDelta(vehicle, i, j));
+	}
+
+	@Override
+	public double delta() {
+		return delta;
+	}
+
+	@Override
+	public void applyTo(Solution s) {
+		s.reverse(vehicle, i, j);
+	}
+}
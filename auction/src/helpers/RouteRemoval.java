@@ -0,0 +1,22 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Remove every task of a random vehicle, or count random tasks of it when its route is longer
+ */
+public class RouteRemoval implements Removal {
+
+	@Override
+	public void remove(Solution solution, int count, Random random) {
+		int v = random.nextInt(solution.vehicleCount());
+		while (solution.size(v) == 0) {
+			v = random.nextInt(solution.vehicleCount());
+		}
+
+		for (int i = 0; i < count && solution.size(v) > 0; i++) {
+			int action = solution.action(v, random.nextInt(solution.size(v)));
+			solution.removeTask(Solution.taskOf(action));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package helpers;
+
+/**
+ * Or-opt neighbor: a segment of one to three consecutive actions is moved to another time of the same vehicle
+ */
+public class SegmentMove implements Neighbor {
+	public final int vehicle;
+	public final int from;
+	public final int length;
+	public final int to;
+	private final double delta;
+
+	public SegmentMove(int vehicle, int from, int length, int to, double delta) {
+		this.vehicle = vehicle;
+		this.from = from;
+		this.length = length;
+		this.to = to;
+		this.delta = delta;
+	}
+
+	/**
+	 * Evaluate a segment move on a solution
+	 *
+	 * @return the move with its cost change, or null if it breaks a precedence or the capacity of the vehicle
+	 */
+	public static SegmentMove evaluate(Solution s, int vehicle, int from, int length, int to) {
+		if (!s.canMoveSegment(vehicle, from, length, to)) {
+			return null;
+		}
+		return new SegmentMove(vehicle, from, length, to, s.segmentDelta(vehicle, from, length, to));
+	}
+
+	@Override
+	public double delta() {
+		return delta;
+	}
+
+	@Override
+	public void applyTo(Solution s) {
+		s.moveSegment(vehicle, from, length, to);
+	}
+}
@@ -0,0 +1,28 @@
+package helpers;
+
+/**
+ * Put every task, one after the other, on the vehicle with the biggest capacity
+ */
+public class SequentialConstruction implements Construction {
+
+	@Override
+	public boolean build(Solution solution, long deadline) {
+		int vMaxCap = 0;
+		for (int v = 1; v < solution.vehicleCount(); v++) {
+			if (solution.capacity(v) > solution.capacity(vMaxCap)) {
+				vMaxCap = v;
+			}
+		}
+
+		for (int t = 0; t < solution.taskCount(); t++) {
+			if (solution.vehicleOf(t) != Solution.UNASSIGNED) {
+				continue;
+			}
+			if (solution.capacity(vMaxCap) < solution.task(t).weight) {
+				throw new IllegalStateException("No vehicles can carry task:\n " + solution.task(t).toString());
+			}
+			solution.appendTask(t, vMaxCap);
+		}
+		return true;
+	}
+}
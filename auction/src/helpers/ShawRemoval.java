@@ -0,0 +1,55 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Remove tasks related to each other: starting from a random task, the tasks whose pickup and delivery cities are
+ * close to those of an already removed task are removed.
+ */
+public class ShawRemoval implements Removal {
+
+	// The higher, the more often the most related task is picked
+	private static final double DETERMINISM = 6.;
+
+	private final TopologyIndex index;
+
+	public ShawRemoval(TopologyIndex index) {
+		this.index = index;
+	}
+
+	@Override
+	public void remove(Solution solution, int count, Random random) {
+		int[] assigned = Removal.assignedTasks(solution);
+		int n = assigned.length;
+		int[] removed = new int[count];
+		double[] relatedness = new double[solution.taskCount()];
+
+		// removed tasks are swapped to the end of assigned
+		int seed = random.nextInt(n);
+		removed[0] = assigned[seed];
+		assigned[seed] = assigned[--n];
+		for (int i = 1; i < count; i++) {
+			int r = removed[random.nextInt(i)];
+			for (int j = 0; j < n; j++) {
+				relatedness[assigned[j]] = distance(solution, r, assigned[j]);
+			}
+			// closest task first
+			int k = (int) (Math.pow(random.nextDouble(), DETERMINISM) * n);
+			Removal.select(assigned, n, relatedness, k);
+			removed[i] = assigned[k];
+			assigned[k] = assigned[--n];
+		}
+
+		for (int t : removed) {
+			solution.removeTask(t);
+		}
+	}
+
+	/**
+	 * @return the distance between the pickup cities plus the distance between the delivery cities of two tasks
+	 */
+	private double distance(Solution solution, int a, int b) {
+		return index.distance(solution.task(a).pickupCity, solution.task(b).pickupCity)
+				+ index.distance(solution.task(a).deliveryCity, solution.task(b).deliveryCity);
+	}
+}
@@ -0,0 +1,1009 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+import logist.topology.Topology.City;
+
+/**
+ * Compact representation of a solution of the centralized planning problem.
+ * <p>
+ * The schedule of each vehicle is stored in a flat int array of encoded actions (task index times two, plus one for a
+ * delivery) together with a parallel array holding the load of the vehicle after each action. The time (index in the
+ * schedule) of the pickup and the delivery of every task is kept in per task arrays, so moves never have to search a
+ * schedule and copying a solution only copies a few primitive arrays.
+ * <p>
+ * The load profile of each schedule is completed by a sparse table of range maxima, so checking that a task fits
+ * between two times of a schedule takes constant time.
+ * <p>
+ * Moves are applied in place and recorded in an undo journal, so a search can roll back to the last committed state
+ * without keeping a copy of it.
+ */
+public class Solution {
+
+	// Shared by all copies of a solution
+	private final TopologyIndex index;
+	private final Task[] tasks;
+	private final int[] cities;
+	private final int[] homes;
+	private final int[] capacities;
+	private final double[] costsPerKm;
+
+	// Schedules, one row per vehicle
+	private final int[][] actions;
+	private final int[][] loads;
+	private final int[] sizes;
+	// maxLoads[v][j - 1][i] is the maximum load of vehicle v over times i to i + 2^j - 1
+	private final int[][][] maxLoads;
+	// hashes[v][i] is the Zobrist hash of the schedule of vehicle v up to time i, each action at each time having its
+	// own random key
+	private final long[][] hashes;
+
+	// Cost of each schedule, recomputed only for the vehicles modified since the last evaluation
+	private final double[] vehicleCosts;
+	private final boolean[] dirty;
+	// Cost of the schedules evaluated before, keyed by their hash, created on demand and never shared between copies
+	private static final int ROUTE_CACHE_BITS = 8;
+	private CostCache routeCosts;
+
+	// Position of each task, UNASSIGNED for a task carried by no vehicle
+	public static final int UNASSIGNED = -1;
+	private final int[] vehicleOf;
+	private final int[] pickupTime;
+	private final int[] deliveryTime;
+
+	// Undo journal, four ints per move since the last commit: the task, vehicle, pickup time and delivery time before a
+	// task move, or a negative operator code followed by the arguments that revert a route operator
+	private static final int RECORD = 4;
+	private static final int REVERSE = -1;
+	private static final int SEGMENT = -2;
+	private static final int SWAP = -3;
+	private int[] journal = new int[16 * RECORD];
+	private int journalSize;
+
+	/**
+	 * Create a solution where all vehicles have an empty schedule
+	 *
+	 * @param vehicles the vehicles of the company
+	 * @param tasks    the tasks that can be scheduled, indexed by their position in the array
+	 * @param index    the distances of the topology
+	 */
+	public Solution(List<Vehicle> vehicles, Task[] tasks, TopologyIndex index) {
+		int nVehicles = vehicles.size();
+		this.index = index;
+		this.tasks = tasks;
+		this.cities = new int[2 * tasks.length];
+		for (int t = 0; t < tasks.length; t++) {
+			cities[pickup(t)] = tasks[t].pickupCity.id;
+			cities[delivery(t)] = tasks[t].deliveryCity.id;
+		}
+		this.homes = new int[nVehicles];
+		this.capacities = new int[nVehicles];
+		this.costsPerKm = new double[nVehicles];
+		for (int v = 0; v < nVehicles; v++) {
+			homes[v] = vehicles.get(v).homeCity().id;
+			capacities[v] = vehicles.get(v).capacity();
+			costsPerKm[v] = vehicles.get(v).costPerKm();
+		}
+
+		this.actions = new int[nVehicles][2 * tasks.length];
+		this.loads = new int[nVehicles][2 * tasks.length];
+		this.sizes = new int[nVehicles];
+		int levels = 31 - Integer.numberOfLeadingZeros(Math.max(2 * tasks.length, 1));
+		this.maxLoads = new int[nVehicles][levels][2 * tasks.length];
+		this.hashes = new long[nVehicles][2 * tasks.length];
+
+		this.vehicleCosts = new double[nVehicles];
+		this.dirty = new boolean[nVehicles];
+
+		this.vehicleOf = new int[tasks.length];
+		Arrays.fill(vehicleOf, UNASSIGNED);
+		this.pickupTime = new int[tasks.length];
+		this.deliveryTime = new int[tasks.length];
+	}
+
+	private Solution(Solution other) {
+		this.index = other.index;
+		this.tasks = other.tasks;
+		this.cities = other.cities;
+		this.homes = other.homes;
+		this.capacities = other.capacities;
+		this.costsPerKm = other.costsPerKm;
+
+		this.actions = new int[other.actions.length][];
+		this.loads = new int[other.loads.length][];
+		this.maxLoads = new int[other.maxLoads.length][][];
+		this.hashes = new long[other.hashes.length][];
+		for (int v = 0; v < actions.length; v++) {
+			actions[v] = other.actions[v].clone();
+			loads[v] = other.loads[v].clone();
+			hashes[v] = other.hashes[v].clone();
+			maxLoads[v] = new int[other.maxLoads[v].length][];
+			for (int j = 0; j < maxLoads[v].length; j++) {
+				maxLoads[v][j] = other.maxLoads[v][j].clone();
+			}
+		}
+		this.sizes = other.sizes.clone();
+
+		this.vehicleCosts = other.vehicleCosts.clone();
+		this.dirty = other.dirty.clone();
+
+		this.vehicleOf = other.vehicleOf.clone();
+		this.pickupTime = other.pickupTime.clone();
+		this.deliveryTime = other.deliveryTime.clone();
+	}
+
+	/**
+	 * Build a solution from linked action entries
+	 *
+	 * @param entries    one header entry per vehicle
+	 * @param vehicles   the vehicles of the company
+	 * @param index      the distances of the topology
+	 * @param unassigned tasks carried by no vehicle yet, indexed after the scheduled ones
+	 * @return the equivalent compact solution
+	 */
+	public static Solution fromActions(ActionEntry[] entries, List<Vehicle> vehicles, TopologyIndex index,
+			Task... unassigned) {
+		List<Task> taskList = new ArrayList<>();
+		Map<Task, Integer> taskIndex = new IdentityHashMap<>();
+		for (ActionEntry header : entries) {
+			for (ActionEntry a = header.next; a != null; a = a.next) {
+				if (a.pickup) {
+					taskIndex.put(a.task, taskList.size());
+					taskList.add(a.task);
+				}
+			}
+		}
+
+		taskList.addAll(Arrays.asList(unassigned));
+
+		Solution s = new Solution(vehicles, taskList.toArray(new Task[0]), index);
+		for (int v = 0; v < entries.length; v++) {
+			for (ActionEntry a = entries[v].next; a != null; a = a.next) {
+				int t = taskIndex.get(a.task);
+				s.actions[v][s.sizes[v]++] = a.pickup ? pickup(t) : delivery(t);
+			}
+			s.update(v, 0);
+		}
+		return s;
+	}
+
+	/**
+	 * @return the equivalent solution as linked action entries
+	 */
+	public ActionEntry[] toActions() {
+		ActionEntry[] entries = new ActionEntry[actions.length];
+		for (int v = 0; v < actions.length; v++) {
+			entries[v] = new ActionEntry(v);
+			ActionEntry last = entries[v];
+			for (int i = 0; i < sizes[v]; i++) {
+				ActionEntry a = new ActionEntry(tasks[taskOf(actions[v][i])], isPickup(actions[v][i]));
+				last.add(a);
+				last = a;
+			}
+			entries[v].updateTimeAndLoad(Integer.MAX_VALUE);
+		}
+		return entries;
+	}
+
+	/**
+	 * @return a copy of the solution, with an empty journal
+	 */
+	public Solution copy() {
+		return new Solution(this);
+	}
+
+	/**
+	 * @return a copy of the solution as it was at the last commit, this solution is left untouched
+	 */
+	public Solution committed() {
+		Solution s = new Solution(this);
+		for (int k = journalSize - RECORD; k >= 0; k -= RECORD) {
+			s.revert(journal, k);
+		}
+		return s;
+	}
+
+	/*
+	 * Action encoding
+	 */
+
+	public static int pickup(int t) {
+		return t << 1;
+	}
+
+	public static int delivery(int t) {
+		return (t << 1) | 1;
+	}
+
+	public static int taskOf(int action) {
+		return action >> 1;
+	}
+
+	public static boolean isPickup(int action) {
+		return (action & 1) == 0;
+	}
+
+	/*
+	 * Accessors
+	 */
+
+	public int vehicleCount() {
+		return actions.length;
+	}
+
+	public int taskCount() {
+		return tasks.length;
+	}
+
+	public Task task(int t) {
+		return tasks[t];
+	}
+
+	public int size(int v) {
+		return sizes[v];
+	}
+
+	public int action(int v, int i) {
+		return actions[v][i];
+	}
+
+	public int load(int v, int i) {
+		return loads[v][i];
+	}
+
+	public int capacity(int v) {
+		return capacities[v];
+	}
+
+	public int vehicleOf(int t) {
+		return vehicleOf[t];
+	}
+
+	public int pickupTime(int t) {
+		return pickupTime[t];
+	}
+
+	public int deliveryTime(int t) {
+		return deliveryTime[t];
+	}
+
+	public boolean hasTasks() {
+		for (int size : sizes) {
+			if (size > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if task t is already scheduled in vehicle v with pickup at iP and delivery at iD
+	 */
+	public boolean isAt(int t, int v, int iP, int iD) {
+		return vehicleOf[t] == v && pickupTime[t] == iP && deliveryTime[t] == iD;
+	}
+
+	/*
+	 * Moves
+	 */
+
+	/**
+	 * Append a task at the end of the schedule of a vehicle. This is used to build a solution and is not recorded in
+	 * the journal.
+	 *
+	 * @return true if the schedule is still valid
+	 */
+	public boolean appendTask(int t, int v) {
+		int from = sizes[v];
+		actions[v][sizes[v]++] = pickup(t);
+		actions[v][sizes[v]++] = delivery(t);
+		return update(v, from);
+	}
+
+	/**
+	 * Append actions at the end of the schedule of a vehicle. Their tasks must be unassigned and each of them picked
+	 * up and delivered in the sequence. This is used to build a solution and is not recorded in the journal.
+	 *
+	 * @param sequence the actions, in the order in which the vehicle performs them
+	 * @param length   the number of actions of the sequence to append
+	 * @return true if the schedule is still valid
+	 */
+	public boolean appendActions(int v, int[] sequence, int length) {
+		int from = sizes[v];
+		for (int i = 0; i < length; i++) {
+			actions[v][sizes[v]++] = sequence[i];
+		}
+		return update(v, from);
+	}
+
+	/**
+	 * Move a task to another position, possibly in another vehicle. An unassigned task is inserted.
+	 *
+	 * @param t  the task to move
+	 * @param to the vehicle that will carry the task
+	 * @param iP the time of the pickup in the new schedule of vehicle to
+	 * @param iD the time of the delivery in the new schedule of vehicle to, strictly greater than iP
+	 * @return true if both modified schedules respect the vehicles capacity
+	 */
+	public boolean moveTask(int t, int to, int iP, int iD) {
+		record(t, vehicleOf[t], pickupTime[t], deliveryTime[t]);
+		return relocate(t, to, iP, iD);
+	}
+
+	/**
+	 * Remove a task from its vehicle, the task becomes unassigned
+	 */
+	public void removeTask(int t) {
+		moveTask(t, UNASSIGNED, 0, 0);
+	}
+
+	/**
+	 * Undo the last move recorded in the journal
+	 */
+	public void undo() {
+		journalSize -= RECORD;
+		revert(journal, journalSize);
+	}
+
+	/**
+	 * Undo all the moves since the last commit
+	 */
+	public void rollback() {
+		while (journalSize > 0) {
+			undo();
+		}
+	}
+
+	/**
+	 * Forget the moves recorded in the journal, the current state becomes the one restored by a rollback
+	 */
+	public void commit() {
+		journalSize = 0;
+	}
+
+	/**
+	 * @return the number of moves since the last commit
+	 */
+	public int journalSize() {
+		return journalSize / RECORD;
+	}
+
+	private void record(int a, int b, int c, int d) {
+		if (journalSize == journal.length) {
+			journal = Arrays.copyOf(journal, 2 * journal.length);
+		}
+		journal[journalSize++] = a;
+		journal[journalSize++] = b;
+		journal[journalSize++] = c;
+		journal[journalSize++] = d;
+	}
+
+	/**
+	 * Apply to this solution the inverse of the journal record starting at k
+	 */
+	private void revert(int[] records, int k) {
+		switch (records[k]) {
+		case REVERSE:
+			reverseSegment(records[k + 1], records[k + 2], records[k + 3]);
+			break;
+		case SEGMENT:
+			shiftSegment(records[k + 1], records[k + 3] >> 2, records[k + 3] & 3, records[k + 2]);
+			break;
+		case SWAP:
+			exchange(records[k + 1], records[k + 2]);
+			break;
+		default:
+			relocate(records[k], records[k + 1], records[k + 2], records[k + 3]);
+		}
+	}
+
+	/**
+	 * Move task t to times iP and iD of vehicle to, or only remove it when to is UNASSIGNED
+	 */
+	private boolean relocate(int t, int to, int iP, int iD) {
+		int from = vehicleOf[t];
+		int p = pickupTime[t];
+
+		if (from != UNASSIGNED) {
+			remove(from, deliveryTime[t]);
+			remove(from, p);
+		}
+		if (to == UNASSIGNED) {
+			vehicleOf[t] = UNASSIGNED;
+			pickupTime[t] = iP;
+			deliveryTime[t] = iD;
+		} else {
+			insert(to, iP, pickup(t));
+			insert(to, iD, delivery(t));
+		}
+
+		if (from == to) {
+			return update(to, Math.min(p, iP));
+		}
+		boolean valid = true;
+		if (from != UNASSIGNED) {
+			valid &= update(from, p);
+		}
+		if (to != UNASSIGNED) {
+			valid &= update(to, iP);
+		}
+		return valid;
+	}
+
+	private void remove(int v, int i) {
+		System.arraycopy(actions[v], i + 1, actions[v], i, sizes[v] - i - 1);
+		sizes[v]--;
+	}
+
+	private void insert(int v, int i, int action) {
+		System.arraycopy(actions[v], i, actions[v], i + 1, sizes[v] - i);
+		actions[v][i] = action;
+		sizes[v]++;
+	}
+
+	/**
+	 * Update the time of each task and the load of the vehicle after each action, starting at time from. The part of
+	 * the schedule before from is assumed to be unchanged and valid.
+	 *
+	 * @return true if the load never exceeds the capacity of the vehicle
+	 */
+	private boolean update(int v, int from) {
+		dirty[v] = true;
+		int load = from == 0 ? 0 : loads[v][from - 1];
+		long hash = from == 0 ? 0L : hashes[v][from - 1];
+		boolean valid = true;
+		for (int i = from; i < sizes[v]; i++) {
+			int a = actions[v][i];
+			int t = taskOf(a);
+			hash ^= CostCache.mix(((long) a << 32) | i);
+			hashes[v][i] = hash;
+			if (isPickup(a)) {
+				load += tasks[t].weight;
+				pickupTime[t] = i;
+				vehicleOf[t] = v;
+			} else {
+				load -= tasks[t].weight;
+				deliveryTime[t] = i;
+			}
+			loads[v][i] = load;
+			valid &= load <= capacities[v];
+		}
+
+		// only the ranges that end at or after time from have changed
+		int[] previous = loads[v];
+		for (int j = 1; j <= maxLoads[v].length; j++) {
+			int[] current = maxLoads[v][j - 1];
+			int half = 1 << (j - 1);
+			for (int i = Math.max(from - (1 << j) + 1, 0); i + (1 << j) <= sizes[v]; i++) {
+				current[i] = Math.max(previous[i], previous[i + half]);
+			}
+			previous = current;
+		}
+		return valid;
+	}
+
+	/**
+	 * @return the maximum load of vehicle v over times i to k, both included
+	 */
+	private int maxLoad(int v, int i, int k) {
+		int j = 31 - Integer.numberOfLeadingZeros(k - i + 1);
+		if (j == 0) {
+			return loads[v][i];
+		}
+		int[] table = maxLoads[v][j - 1];
+		return Math.max(table[i], table[k - (1 << j) + 1]);
+	}
+
+	/*
+	 * Route operators
+	 */
+
+	/**
+	 * Reverse the order of the actions at times i to j of vehicle v (2-opt)
+	 *
+	 * @return true if the schedule respects the capacity of the vehicle
+	 */
+	public boolean reverse(int v, int i, int j) {
+		record(REVERSE, v, i, j);
+		return reverseSegment(v, i, j);
+	}
+
+	/**
+	 * Check, without applying it, that a reversal keeps every pickup before its delivery and respects the capacity
+	 *
+	 * @see #reverse(int, int, int)
+	 */
+	public boolean canReverse(int v, int i, int j) {
+		for (int k = i; k <= j; k++) {
+			int a = actions[v][k];
+			if (isPickup(a) && deliveryTime[taskOf(a)] <= j) {
+				return false;
+			}
+		}
+		int load = i == 0 ? 0 : loads[v][i - 1];
+		for (int k = j; k >= i; k--) {
+			int a = actions[v][k];
+			load += isPickup(a) ? tasks[taskOf(a)].weight : -tasks[taskOf(a)].weight;
+			if (load > capacities[v]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compute, without applying it, the change of cost of a reversal. The distances of the topology are symmetric, so
+	 * only the two edges at the ends of the segment change.
+	 *
+	 * @see #reverse(int, int, int)
+	 */
+	public double reverseDelta(int v, int i, int j) {
+		int before = cityAt(v, i - 1);
+		int first = cityAt(v, i);
+		int last = cityAt(v, j);
+		int after = cityAt(v, j + 1);
+		return (distance(before, last) + distance(first, after) - distance(before, first) - distance(last, after))
+				* costsPerKm[v];
+	}
+
+	private boolean reverseSegment(int v, int i, int j) {
+		for (int a = i, b = j; a < b; a++, b--) {
+			int action = actions[v][a];
+			actions[v][a] = actions[v][b];
+			actions[v][b] = action;
+		}
+		return update(v, i);
+	}
+
+	/**
+	 * Move the len (1 to 3) actions starting at time i of vehicle v so that they start at time k (Or-opt)
+	 *
+	 * @return true if the schedule respects the capacity of the vehicle
+	 */
+	public boolean moveSegment(int v, int i, int len, int k) {
+		record(SEGMENT, v, i, (k << 2) | len);
+		return shiftSegment(v, i, len, k);
+	}
+
+	/**
+	 * Check, without applying it, that a segment move keeps every pickup before its delivery and respects the capacity
+	 *
+	 * @see #moveSegment(int, int, int, int)
+	 */
+	public boolean canMoveSegment(int v, int i, int len, int k) {
+		// the actions the segment jumps over
+		int from = k < i ? k : i + len;
+		int to = k < i ? i : k + len;
+		for (int s = i; s < i + len; s++) {
+			int a = actions[v][s];
+			int other = isPickup(a) ? deliveryTime[taskOf(a)] : pickupTime[taskOf(a)];
+			if (other >= from && other < to && isPickup(a) == k > i) {
+				return false;
+			}
+		}
+
+		int start = Math.min(i, k);
+		int end = Math.max(i, k) + len;
+		int load = start == 0 ? 0 : loads[v][start - 1];
+		for (int n = start; n < end; n++) {
+			int a = actions[v][segmentSource(n, i, len, k)];
+			load += isPickup(a) ? tasks[taskOf(a)].weight : -tasks[taskOf(a)].weight;
+			if (load > capacities[v]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compute, without applying it, the change of cost of a segment move
+	 *
+	 * @see #moveSegment(int, int, int, int)
+	 */
+	public double segmentDelta(int v, int i, int len, int k) {
+		int first = cityAt(v, i);
+		int last = cityAt(v, i + len - 1);
+		int before = cityAt(v, i - 1);
+		int after = cityAt(v, i + len);
+		double removal = distance(before, after) - distance(before, first) - distance(last, after);
+
+		// neighbours of the segment in the schedule without it
+		int newBefore = cityAt(v, k - 1 < i ? k - 1 : k - 1 + len);
+		int newAfter = cityAt(v, k < i ? k : k + len);
+		double insertion = distance(newBefore, first) + distance(last, newAfter) - distance(newBefore, newAfter);
+		return (removal + insertion) * costsPerKm[v];
+	}
+
+	/**
+	 * @return the time before the segment move of the action found at time n after it
+	 */
+	private static int segmentSource(int n, int i, int len, int k) {
+		if (n >= k && n < k + len) {
+			return i + n - k;
+		}
+		int r = n < k ? n : n - len;
+		return r < i ? r : r + len;
+	}
+
+	private boolean shiftSegment(int v, int i, int len, int k) {
+		int[] schedule = actions[v];
+		int a0 = schedule[i];
+		int a1 = len > 1 ? schedule[i + 1] : 0;
+		int a2 = len > 2 ? schedule[i + 2] : 0;
+		if (k < i) {
+			System.arraycopy(schedule, k, schedule, k + len, i - k);
+		} else {
+			System.arraycopy(schedule, i + len, schedule, i, k - i);
+		}
+		schedule[k] = a0;
+		if (len > 1) {
+			schedule[k + 1] = a1;
+		}
+		if (len > 2) {
+			schedule[k + 2] = a2;
+		}
+		return update(v, Math.min(i, k));
+	}
+
+	/**
+	 * Exchange two tasks carried by different vehicles, each one taking the pickup and delivery times of the other
+	 *
+	 * @return true if both schedules respect the capacity of their vehicle
+	 */
+	public boolean swap(int t1, int t2) {
+		record(SWAP, t1, t2, 0);
+		return exchange(t1, t2);
+	}
+
+	/**
+	 * Check, without applying it, that an exchange respects the capacity of both vehicles
+	 *
+	 * @see #swap(int, int)
+	 */
+	public boolean canSwap(int t1, int t2) {
+		return fitsInstead(t1, t2) && fitsInstead(t2, t1);
+	}
+
+	/**
+	 * @return true if task t2 fits in the vehicle of task t1 between its pickup and delivery times
+	 */
+	private boolean fitsInstead(int t1, int t2) {
+		int v = vehicleOf[t1];
+		int extra = tasks[t2].weight - tasks[t1].weight;
+		return extra <= 0 || maxLoad(v, pickupTime[t1], deliveryTime[t1] - 1) + extra <= capacities[v];
+	}
+
+	/**
+	 * Compute, without applying it, the change of cost of an exchange
+	 *
+	 * @see #swap(int, int)
+	 */
+	public double swapDelta(int t1, int t2) {
+		return replacementDelta(t1, t2) * costsPerKm[vehicleOf[t1]]
+				+ replacementDelta(t2, t1) * costsPerKm[vehicleOf[t2]];
+	}
+
+	/**
+	 * @return the change of distance when the actions of task t1 are replaced by those of task t2
+	 */
+	private double replacementDelta(int t1, int t2) {
+		int v = vehicleOf[t1];
+		int p = pickupTime[t1];
+		int d = deliveryTime[t1];
+		int oldPick = cities[pickup(t1)];
+		int oldDeli = cities[delivery(t1)];
+		int newPick = cities[pickup(t2)];
+		int newDeli = cities[delivery(t2)];
+		int before = cityAt(v, p - 1);
+		int after = cityAt(v, d + 1);
+
+		if (d == p + 1) {
+			return distance(before, newPick) + distance(newPick, newDeli) + distance(newDeli, after)
+					- distance(before, oldPick) - distance(oldPick, oldDeli) - distance(oldDeli, after);
+		}
+		int afterPick = cityAt(v, p + 1);
+		int beforeDeli = cityAt(v, d - 1);
+		return distance(before, newPick) + distance(newPick, afterPick) - distance(before, oldPick)
+				- distance(oldPick, afterPick) + distance(beforeDeli, newDeli) + distance(newDeli, after)
+				- distance(beforeDeli, oldDeli) - distance(oldDeli, after);
+	}
+
+	private boolean exchange(int t1, int t2) {
+		int v1 = vehicleOf[t1];
+		int p1 = pickupTime[t1];
+		int d1 = deliveryTime[t1];
+		int v2 = vehicleOf[t2];
+		int p2 = pickupTime[t2];
+		int d2 = deliveryTime[t2];
+
+		actions[v1][p1] = pickup(t2);
+		actions[v1][d1] = delivery(t2);
+		actions[v2][p2] = pickup(t1);
+		actions[v2][d2] = delivery(t1);
+
+		boolean valid = update(v1, p1);
+		valid &= update(v2, p2);
+		return valid;
+	}
+
+	/**
+	 * @return the city of the action at time k of vehicle v, the home city before the first action and NO_CITY after
+	 *         the last one
+	 */
+	private int cityAt(int v, int k) {
+		if (k < 0) {
+			return homes[v];
+		}
+		return k < sizes[v] ? cities[actions[v][k]] : NO_CITY;
+	}
+
+	/**
+	 * @return the id of the city visited just before time i of vehicle v once task t has been taken out of it, the
+	 *         home city at time 0
+	 */
+	public int cityBefore(int t, int v, int i) {
+		if (vehicleOf[t] == v) {
+			return cityWithout(v, i - 1, pickupTime[t], deliveryTime[t]);
+		}
+		return cityAt(v, i - 1);
+	}
+
+	/*
+	 * Move evaluation
+	 */
+
+	// Time used when no action is removed from a schedule
+	private static final int NONE = Integer.MAX_VALUE;
+	// City after the last action of a schedule
+	private static final int NO_CITY = -1;
+
+	/**
+	 * Check, without applying it, that a move respects the capacity of the vehicle that receives the task
+	 *
+	 * @see #moveTask(int, int, int, int)
+	 */
+	public boolean canMove(int t, int to, int iP, int iD) {
+		int w = tasks[t].weight;
+		int p = NONE;
+		int d = NONE;
+		if (vehicleOf[t] == to) {
+			p = pickupTime[t];
+			d = deliveryTime[t];
+		}
+
+		// the task is on board from the action before its pickup up to the action before its delivery
+		int first = iP - 1;
+		int last = iD - 2;
+		if (first < 0) {
+			// on board alone right after its pickup at the start of the schedule
+			if (w > capacities[to]) {
+				return false;
+			}
+			first = 0;
+		}
+		return first > last || maxLoadWithout(to, first, last, p, d, w) + w <= capacities[to];
+	}
+
+	/**
+	 * Compute, without applying it, the change of cost of a move. Only the edges around the removed and inserted
+	 * actions are looked at, so this takes constant time.
+	 *
+	 * @see #moveTask(int, int, int, int)
+	 */
+	public double moveDelta(int t, int to, int iP, int iD) {
+		int from = vehicleOf[t];
+		int p = pickupTime[t];
+		int d = deliveryTime[t];
+
+		if (from == UNASSIGNED) {
+			return insertionDelta(to, t, iP, iD, NONE, NONE) * costsPerKm[to];
+		}
+		double removal = removalDelta(from, p, d);
+		if (from == to) {
+			return (removal + insertionDelta(to, t, iP, iD, p, d)) * costsPerKm[to];
+		}
+		return removal * costsPerKm[from] + insertionDelta(to, t, iP, iD, NONE, NONE) * costsPerKm[to];
+	}
+
+	/**
+	 * Compute, without applying it, the change of cost when removing task t from its vehicle
+	 *
+	 * @see #removeTask(int)
+	 */
+	public double removeDelta(int t) {
+		int v = vehicleOf[t];
+		return removalDelta(v, pickupTime[t], deliveryTime[t]) * costsPerKm[v];
+	}
+
+	/**
+	 * @return the change of distance when removing the actions at times p and d of vehicle v
+	 */
+	private double removalDelta(int v, int p, int d) {
+		int pick = cities[actions[v][p]];
+		int deli = cities[actions[v][d]];
+		int before = p == 0 ? homes[v] : cities[actions[v][p - 1]];
+		int after = d + 1 < sizes[v] ? cities[actions[v][d + 1]] : NO_CITY;
+
+		if (d == p + 1) {
+			return distance(before, after) - distance(before, pick) - distance(pick, deli) - distance(deli, after);
+		}
+		int afterPick = cities[actions[v][p + 1]];
+		int beforeDeli = cities[actions[v][d - 1]];
+		return distance(before, afterPick) - distance(before, pick) - distance(pick, afterPick)
+				+ distance(beforeDeli, after) - distance(beforeDeli, deli) - distance(deli, after);
+	}
+
+	/**
+	 * @return the change of distance when inserting task t at times iP and iD of vehicle v, once the actions at times
+	 *         p and d have been removed
+	 */
+	private double insertionDelta(int v, int t, int iP, int iD, int p, int d) {
+		int pick = cities[pickup(t)];
+		int deli = cities[delivery(t)];
+		int before = cityWithout(v, iP - 1, p, d);
+
+		if (iD == iP + 1) {
+			int after = cityWithout(v, iP, p, d);
+			return distance(before, pick) + distance(pick, deli) + distance(deli, after) - distance(before, after);
+		}
+		int afterPick = cityWithout(v, iP, p, d);
+		int beforeDeli = cityWithout(v, iD - 2, p, d);
+		int afterDeli = cityWithout(v, iD - 1, p, d);
+		return distance(before, pick) + distance(pick, afterPick) - distance(before, afterPick)
+				+ distance(beforeDeli, deli) + distance(deli, afterDeli) - distance(beforeDeli, afterDeli);
+	}
+
+	/**
+	 * @return the time in the full schedule of the action found at time k once the actions at times p and d (p < d)
+	 *         have been removed
+	 */
+	private static int timeWithout(int k, int p, int d) {
+		if (k >= p) {
+			k++;
+		}
+		if (k >= d) {
+			k++;
+		}
+		return k;
+	}
+
+	/**
+	 * @return the city of the action at time k once the actions at times p and d have been removed, the home city
+	 *         before the first action and NO_CITY after the last one
+	 */
+	private int cityWithout(int v, int k, int p, int d) {
+		if (k < 0) {
+			return homes[v];
+		}
+		k = timeWithout(k, p, d);
+		return k < sizes[v] ? cities[actions[v][k]] : NO_CITY;
+	}
+
+	/**
+	 * @return the maximum load after the actions at times first to last (0 <= first <= last) once the task of weight w
+	 *         picked up at p and delivered at d has been removed
+	 */
+	private int maxLoadWithout(int v, int first, int last, int p, int d, int w) {
+		if (p == NONE) {
+			return maxLoad(v, first, last);
+		}
+
+		// the remaining actions before the pickup, while the task was on board and after its delivery
+		int max = Integer.MIN_VALUE;
+		if (first < p) {
+			max = maxLoad(v, first, Math.min(last, p - 1));
+		}
+		if (Math.max(first, p) <= Math.min(last, d - 2)) {
+			max = Math.max(max, maxLoad(v, Math.max(first, p) + 1, Math.min(last, d - 2) + 1) - w);
+		}
+		if (Math.max(first, d - 1) <= last) {
+			max = Math.max(max, maxLoad(v, Math.max(first, d - 1) + 2, last + 2));
+		}
+		return max;
+	}
+
+	/**
+	 * @return the distance between two cities, zero when there is no city to go to
+	 */
+	private double distance(int from, int to) {
+		return to == NO_CITY ? 0 : index.distance(from, to);
+	}
+
+	/*
+	 * Cost
+	 */
+
+	public City city(int action) {
+		return index.city(cities[action]);
+	}
+
+	/**
+	 * @return the cost of the schedule of vehicle v
+	 */
+	public double vehicleCost(int v) {
+		if (dirty[v]) {
+			vehicleCosts[v] = cachedVehicleCost(v);
+			dirty[v] = false;
+		}
+		return vehicleCosts[v];
+	}
+
+	/**
+	 * @return the cost of the schedule of vehicle v, read from the cache when it was evaluated before
+	 */
+	private double cachedVehicleCost(int v) {
+		if (sizes[v] == 0) {
+			return 0.;
+		}
+		if (routeCosts == null) {
+			routeCosts = new CostCache(ROUTE_CACHE_BITS);
+		}
+		long key = CostCache.mix(routeHash(v) + v);
+		double cost = routeCosts.get(key);
+		if (Double.isNaN(cost)) {
+			cost = computeVehicleCost(v);
+			routeCosts.put(key, cost);
+		}
+		return cost;
+	}
+
+	/**
+	 * @return the hash of the schedule of vehicle v, 0 for an empty schedule
+	 */
+	public long routeHash(int v) {
+		return sizes[v] == 0 ? 0L : hashes[v][sizes[v] - 1];
+	}
+
+	/**
+	 * Two solutions with the same schedules have the same hash, which is updated with the schedules after each move
+	 *
+	 * @return the hash of the solution
+	 */
+	public long hash() {
+		long hash = 0L;
+		for (int v = 0; v < actions.length; v++) {
+			hash ^= CostCache.mix(routeHash(v) + v);
+		}
+		return hash;
+	}
+
+	private double computeVehicleCost(int v) {
+		double distance = 0;
+		int current = homes[v];
+		for (int i = 0; i < sizes[v]; i++) {
+			int next = cities[actions[v][i]];
+			distance += index.distance(current, next);
+			current = next;
+		}
+		return distance * costsPerKm[v];
+	}
+
+	/**
+	 * @return the sum of vehicles cost
+	 */
+	public double cost() {
+		double sum = 0;
+		for (int v = 0; v < actions.length; v++) {
+			sum += vehicleCost(v);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the schedule of vehicle v in the same format as ActionEntry
+	 */
+	public String toString(int v) {
+		StringBuilder sb = new StringBuilder("->");
+		for (int i = 0; i < sizes[v]; i++) {
+			int a = actions[v][i];
+			sb.append("->").append(isPickup(a) ? "P(" : "D(").append(tasks[taskOf(a)].id).append(")");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,141 @@
+package helpers;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Best schedules of the task sets planned before, used to start the next planning near a good solution.
+ * <p>
+ * The schedules are keyed by the set of their task ids and refer to tasks by id, so they survive new task objects.
+ * The store keeps the CAPACITY sets used last. A new task set starts from the stored schedule sharing the most tasks
+ * with it: the tasks it does not have are dropped, which keeps the schedule valid, and the new tasks are added by
+ * cheapest insertion.
+ */
+public class SolutionStore {
+
+	private static final int CAPACITY = 16;
+	// Share of the new tasks a stored schedule must already carry to be used
+	private static final double MIN_SHARED = 0.5;
+
+	// in access order, the least recently used set first
+	private final Map<BitSet, Entry> entries = new LinkedHashMap<BitSet, Entry>(CAPACITY, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<BitSet, Entry> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/**
+	 * Remember a solution if it is the cheapest one found for its task set
+	 *
+	 * @param solution a solution where every task is assigned, left untouched
+	 * @param cost     the cost of the solution
+	 */
+	public void save(Solution solution, double cost) {
+		BitSet key = new BitSet();
+		for (int t = 0; t < solution.taskCount(); t++) {
+			key.set(solution.task(t).id);
+		}
+		Entry stored = entries.get(key);
+		if (stored != null && stored.cost <= cost) {
+			return;
+		}
+
+		int[][] schedule = new int[solution.vehicleCount()][];
+		for (int v = 0; v < schedule.length; v++) {
+			schedule[v] = new int[solution.size(v)];
+			for (int i = 0; i < schedule[v].length; i++) {
+				int a = solution.action(v, i);
+				schedule[v][i] = 2 * solution.task(Solution.taskOf(a)).id + (Solution.isPickup(a) ? 0 : 1);
+			}
+		}
+		entries.put(key, new Entry(schedule, cost));
+	}
+
+	/**
+	 * @param vehicles the vehicles of the company, the same as for the stored solutions
+	 * @param tasks    the tasks to plan
+	 * @param index    the distances of the topology
+	 * @param deadline the time in millisecond at which the insertion of the new tasks must be done
+	 * @return a solution of tasks built from the closest stored schedule, or null if none is close enough
+	 */
+	public Solution seed(List<Vehicle> vehicles, Task[] tasks, TopologyIndex index, long deadline) {
+		BitSet key = new BitSet();
+		Map<Integer, Task> byId = new HashMap<>();
+		for (Task t : tasks) {
+			key.set(t.id);
+			byId.put(t.id, t);
+		}
+
+		// most shared tasks first, then fewest tasks to drop
+		BitSet closest = null;
+		int bestShared = 0;
+		int bestDropped = 0;
+		for (Map.Entry<BitSet, Entry> e : entries.entrySet()) {
+			if (e.getValue().schedule.length != vehicles.size()) {
+				continue;
+			}
+			BitSet shared = (BitSet) e.getKey().clone();
+			shared.and(key);
+			int nShared = shared.cardinality();
+			int nDropped = e.getKey().cardinality() - nShared;
+			if (nShared > bestShared || (nShared == bestShared && closest != null && nDropped < bestDropped)) {
+				closest = e.getKey();
+				bestShared = nShared;
+				bestDropped = nDropped;
+			}
+		}
+		if (closest == null || bestShared < MIN_SHARED * tasks.length) {
+			return null;
+		}
+
+		int[][] schedule = entries.get(closest).schedule;
+		ActionEntry[] headers = new ActionEntry[schedule.length];
+		for (int v = 0; v < schedule.length; v++) {
+			headers[v] = new ActionEntry(v);
+			ActionEntry last = headers[v];
+			for (int code : schedule[v]) {
+				Task t = byId.get(code / 2);
+				if (t != null) {
+					ActionEntry a = new ActionEntry(t, code % 2 == 0);
+					last.add(a);
+					last = a;
+				}
+			}
+		}
+		List<Task> added = new ArrayList<>();
+		for (Task t : tasks) {
+			if (!closest.get(t.id)) {
+				added.add(t);
+			}
+		}
+
+		Solution solution = Solution.fromActions(headers, vehicles, index, added.toArray(new Task[0]));
+		if (!added.isEmpty() && !new RegretInsertion(1).build(solution, deadline)) {
+			return null;
+		}
+		return solution;
+	}
+
+	/**
+	 * Schedule of a stored solution, per vehicle the task id of each action times two, plus one for a delivery
+	 */
+	private static final class Entry {
+		private final int[][] schedule;
+		private final double cost;
+
+		private Entry(int[][] schedule, double cost) {
+			this.schedule = schedule;
+			this.cost = cost;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package helpers;
+
+/**
+ * Neighbor exchanging two tasks of different vehicles, each task taking the pickup and delivery times of the other
+ */
+public class Swap implements Neighbor {
+	public final int task1;
+	public final int task2;
+	private final double delta;
+
+	public Swap(int task1, int task2, double delta) {
+		this.task1 = task1;
+		this.task2 = task2;
+		this.delta = delta;
+	}
+
+	/**
+	 * Evaluate an exchange on a solution
+	 *
+	 * @return the exchange with its cost change, or null if it does not respect the capacity of both vehicles
+	 */
+	public static Swap evaluate(Solution s, int task1, int task2) {
+		if (!s.canSwap(task1, task2)) {
+			return null;
+		}
+		return new Swap(task1, task2, s.swapDelta(task1, task2));
+	}
+
+	@Override
+	public double delta() {
+		return delta;
+	}
+
+	@Override
+	public void applyTo(Solution s) {
+		s.swap(task1, task2);
+	}
+}
@@ -0,0 +1,119 @@
+package helpers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tabu search: at each iteration the best move of a few random tasks is applied, even when it increases the cost.
+ * <p>
+ * A task leaving a (vehicle, pickup time) position may not come back to it for a random number of iterations. These
+ * attributes are kept in a direct mapped table of primitive keys, where a collision simply forgets the older attribute.
+ * A tabu move is still allowed when it leads to a new best solution (aspiration). The moves are committed at each new
+ * best solution, so a restart rolls back to it and the journal never holds more than STALL moves. A search must not be
+ * shared between threads.
+ */
+public class TabuSearch {
+
+	// Number of random tasks whose moves are evaluated at each iteration
+	private static final int NEIGHBORHOOD_TASKS = 2;
+	// The tenure is drawn between MIN_TENURE and MIN_TENURE plus a quarter of the number of tasks
+	private static final int MIN_TENURE = 5;
+	// Number of iterations without a new best solution before restarting from the best one
+	private static final int STALL = 2000;
+	private static final int MEMORY_BITS = 12;
+
+	// Attribute and last tabu iteration of each slot of the memory
+	private final long[] attributes = new long[1 << MEMORY_BITS];
+	private final int[] expiries = new int[1 << MEMORY_BITS];
+	private final MoveCursor cursor = new MoveCursor();
+
+	/**
+	 * Search a cheaper solution until the deadline
+	 *
+	 * @param start     the solution to start from, containing at least one task, left untouched
+	 * @param random    the random generator of the search
+	 * @param scheduler the deadline of the search
+	 * @return the best solution found
+	 */
+	public Solution search(Solution start, Random random, DeadlineScheduler scheduler) {
+		Arrays.fill(expiries, 0);
+
+		Solution current = start.copy();
+		double currentCost = current.cost();
+		double bestCost = currentCost;
+
+		int nTasks = current.taskCount();
+		int lastImprovement = 0;
+		for (int iteration = 1; scheduler.next(); iteration++) {
+
+			// best admissible move of a few random tasks
+			int bestT = -1;
+			int bestV = 0;
+			int bestP = 0;
+			int bestD = 0;
+			double bestDelta = Double.POSITIVE_INFINITY;
+			for (int k = 0; k < NEIGHBORHOOD_TASKS; k++) {
+				int t = random.nextInt(nTasks);
+				for (int v = 0; v < current.vehicleCount(); v++) {
+					cursor.reset(current, t, v);
+					while (cursor.next()) {
+						double delta = cursor.delta();
+						if (delta < bestDelta
+								&& (!isTabu(t, v, cursor.pickupTime(), iteration) || currentCost + delta < bestCost)) {
+							bestT = t;
+							bestV = v;
+							bestP = cursor.pickupTime();
+							bestD = cursor.deliveryTime();
+							bestDelta = delta;
+						}
+					}
+				}
+			}
+			if (bestT < 0) {
+				continue;
+			}
+			Move selected = new Move(bestT, bestV, bestP, bestD, bestDelta);
+
+			// the position the task leaves becomes tabu
+			int t = selected.task;
+			int tenure = MIN_TENURE + random.nextInt(nTasks / 4 + 1);
+			makeTabu(t, current.vehicleOf(t), current.pickupTime(t), iteration + tenure);
+			selected.applyTo(current);
+			currentCost += selected.delta;
+
+			if (currentCost < bestCost) {
+				bestCost = currentCost;
+				current.commit();
+				lastImprovement = iteration;
+				scheduler.improved(current, bestCost);
+			} else if (iteration - lastImprovement > STALL) {
+				current.rollback();
+				currentCost = bestCost;
+				lastImprovement = iteration;
+			}
+		}
+		current.rollback();
+		return current;
+	}
+
+	private boolean isTabu(int t, int v, int iP, int iteration) {
+		long attribute = attribute(t, v, iP);
+		int slot = slot(attribute);
+		return attributes[slot] == attribute && expiries[slot] > iteration;
+	}
+
+	private void makeTabu(int t, int v, int iP, int expiry) {
+		long attribute = attribute(t, v, iP);
+		int slot = slot(attribute);
+		attributes[slot] = attribute;
+		expiries[slot] = expiry;
+	}
+
+	private static long attribute(int t, int v, int iP) {
+		return ((long) t << 40) | ((long) v << 20) | iP;
+	}
+
+	private static int slot(long attribute) {
+		return (int) ((attribute * 0x9E3779B97F4A7C15L) >>> (64 - MEMORY_BITS));
+	}
+}
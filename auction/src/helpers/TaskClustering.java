@@ -0,0 +1,199 @@
+package helpers;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Partition of the tasks between the vehicles by geography.
+ * <p>
+ * The tasks are grouped by k-medoids around one medoid per vehicle, two tasks being close when both their pickup and
+ * their delivery cities are. Each cluster then goes to the vehicle whose home is the closest to its medoid, a vehicle
+ * getting one cluster. A task too heavy for the vehicle of its cluster goes to the closest vehicle able to carry it.
+ */
+public class TaskClustering {
+
+	// Rounds of k-medoids at most
+	private static final int ROUNDS = 20;
+
+	private final TopologyIndex index;
+
+	/**
+	 * @param index the distances of the topology
+	 */
+	public TaskClustering(TopologyIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * @return the distance between two tasks, the mean of the distances between their pickups and their deliveries
+	 */
+	public double distance(Task a, Task b) {
+		return (index.distance(a.pickupCity.id, b.pickupCity.id)
+				+ index.distance(a.deliveryCity.id, b.deliveryCity.id)) / 2;
+	}
+
+	/**
+	 * @param tasks    the tasks to share
+	 * @param vehicles the vehicles of the company, one of them at least can carry each task
+	 * @param random   the random generator used to seed the clusters
+	 * @return the vehicle of each task, indexed like tasks
+	 */
+	public int[] partition(Task[] tasks, List<Vehicle> vehicles, Random random) {
+		int k = Math.min(vehicles.size(), tasks.length);
+		int[] medoids = new int[k];
+		int[] clusters = cluster(tasks, medoids, random);
+		int[] vehicleOfCluster = assign(tasks, medoids, vehicles);
+
+		int[] vehicleOf = new int[tasks.length];
+		for (int t = 0; t < tasks.length; t++) {
+			vehicleOf[t] = vehicleOfCluster[clusters[t]];
+			if (vehicles.get(vehicleOf[t]).capacity() < tasks[t].weight) {
+				vehicleOf[t] = closestVehicle(tasks[t], vehicles);
+			}
+		}
+		return vehicleOf;
+	}
+
+	/**
+	 * Group the tasks with k-medoids, seeded like k-means++
+	 *
+	 * @param tasks   the tasks to group
+	 * @param medoids filled with the task at the center of each cluster
+	 * @param random  the random generator used to seed the clusters
+	 * @return the cluster of each task
+	 */
+	public int[] cluster(Task[] tasks, int[] medoids, Random random) {
+		int n = tasks.length;
+		int k = medoids.length;
+
+		// each new medoid is drawn with a probability proportional to its squared distance to the closest one
+		double[] closest = new double[n];
+		Arrays.fill(closest, Double.POSITIVE_INFINITY);
+		medoids[0] = random.nextInt(n);
+		for (int c = 1; c < k; c++) {
+			double sum = 0;
+			for (int t = 0; t < n; t++) {
+				double d = distance(tasks[t], tasks[medoids[c - 1]]);
+				closest[t] = Math.min(closest[t], d * d);
+				sum += closest[t];
+			}
+			double x = random.nextDouble() * sum;
+			int chosen = n - 1;
+			for (int t = 0; t < n; t++) {
+				x -= closest[t];
+				if (x < 0) {
+					chosen = t;
+					break;
+				}
+			}
+			medoids[c] = chosen;
+		}
+
+		int[] clusters = new int[n];
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int t = 0; t < n; t++) {
+				clusters[t] = closestMedoid(tasks, tasks[t], medoids);
+			}
+			boolean moved = false;
+			for (int c = 0; c < k; c++) {
+				int medoid = medoid(tasks, clusters, c, medoids[c]);
+				moved |= medoid != medoids[c];
+				medoids[c] = medoid;
+			}
+			if (!moved) {
+				break;
+			}
+		}
+		for (int t = 0; t < n; t++) {
+			clusters[t] = closestMedoid(tasks, tasks[t], medoids);
+		}
+		return clusters;
+	}
+
+	/**
+	 * Give each cluster to a different vehicle, the closest pairs of medoid and home first
+	 *
+	 * @return the vehicle of each cluster
+	 */
+	public int[] assign(Task[] tasks, int[] medoids, List<Vehicle> vehicles) {
+		int k = medoids.length;
+		int[] vehicleOfCluster = new int[k];
+		Arrays.fill(vehicleOfCluster, -1);
+		boolean[] taken = new boolean[vehicles.size()];
+		for (int step = 0; step < k; step++) {
+			int bestC = -1;
+			int bestV = -1;
+			double bestDistance = Double.POSITIVE_INFINITY;
+			for (int c = 0; c < k; c++) {
+				if (vehicleOfCluster[c] >= 0) {
+					continue;
+				}
+				for (int v = 0; v < vehicles.size(); v++) {
+					double d = index.distance(vehicles.get(v).homeCity().id, tasks[medoids[c]].pickupCity.id);
+					if (!taken[v] && d < bestDistance) {
+						bestC = c;
+						bestV = v;
+						bestDistance = d;
+					}
+				}
+			}
+			vehicleOfCluster[bestC] = bestV;
+			taken[bestV] = true;
+		}
+		return vehicleOfCluster;
+	}
+
+	private int closestMedoid(Task[] tasks, Task task, int[] medoids) {
+		int best = 0;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < medoids.length; c++) {
+			double d = distance(task, tasks[medoids[c]]);
+			if (d < bestDistance) {
+				best = c;
+				bestDistance = d;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the task of cluster c with the smallest sum of distances to the other tasks of the cluster
+	 */
+	private int medoid(Task[] tasks, int[] clusters, int c, int current) {
+		int best = current;
+		double bestSum = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < tasks.length; i++) {
+			if (clusters[i] != c) {
+				continue;
+			}
+			double sum = 0;
+			for (int j = 0; j < tasks.length && sum < bestSum; j++) {
+				if (clusters[j] == c) {
+					sum += distance(tasks[i], tasks[j]);
+				}
+			}
+			if (sum < bestSum) {
+				best = i;
+				bestSum = sum;
+			}
+		}
+		return best;
+	}
+
+	private int closestVehicle(Task task, List<Vehicle> vehicles) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int v = 0; v < vehicles.size(); v++) {
+			double d = index.distance(vehicles.get(v).homeCity().id, task.pickupCity.id);
+			if (vehicles.get(v).capacity() >= task.weight && d < bestDistance) {
+				best = v;
+				bestDistance = d;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,32 @@
+package helpers;
+
+import java.util.Random;
+
+/**
+ * Remove the tasks whose removal saves the most, with some randomization so that the same tasks are not always picked
+ */
+public class WorstRemoval implements Removal {
+
+	// The higher, the more often the most expensive task is picked
+	private static final double DETERMINISM = 3.;
+
+	@Override
+	public void remove(Solution solution, int count, Random random) {
+		int[] assigned = Removal.assignedTasks(solution);
+		int n = assigned.length;
+		double[] deltas = new double[solution.taskCount()];
+
+		for (int i = 0; i < count; i++) {
+			for (int j = 0; j < n; j++) {
+				deltas[assigned[j]] = solution.removeDelta(assigned[j]);
+			}
+			// most negative change of cost first
+			int k = (int) (Math.pow(random.nextDouble(), DETERMINISM) * n);
+			Removal.select(assigned, n, deltas, k);
+			solution.removeTask(assigned[k]);
+
+			// keep the remaining assigned tasks at the front of the array
+			assigned[k] = assigned[--n];
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.util.Random;
 import helpers.AuctionHelper;
 import helpers.CentralizedPlanning;
 import helpers.Logger;
+import helpers.TopologyIndex;
 import logist.Measures;
 import logist.behavior.AuctionBehavior;
 import logist.agent.Agent;
@@ -27,9 +28,12 @@ import logist.topology.Topology.City;
 public class TemplateDestroyer implements AuctionBehavior {
 
 	private Topology topology;
+	private TopologyIndex index;
 	private TaskDistribution distribution;
 	private Agent agent;
 	private Random random;
+	// Kept across the plannings so that each one starts from the best solutions of the previous ones
+	private CentralizedPlanning centralizedPlanning;
 	private Vehicle vehicle;
 	private City currentCity,opCity;
 
@@ -38,6 +42,7 @@ public class TemplateDestroyer implements AuctionBehavior {
 	public void setup(Topology topology, TaskDistribution distribution,
 			Agent agent) {
 		this.topology = topology;
+		this.index = new TopologyIndex(topology);
 		this.distribution = distribution;
 		this.agent = agent;
 		this.vehicle = agent.vehicles().get(0);
@@ -48,6 +53,9 @@ public class TemplateDestroyer implements AuctionBehavior {
 		this.random = new Random(seed);
 
 		this.opCity = topology.randomCity(random);
+
+		this.centralizedPlanning = new CentralizedPlanning();
+		centralizedPlanning.setup(this.index, this.distribution, this.agent);
 	}
 
 	@Override
@@ -83,11 +91,6 @@ public class TemplateDestroyer implements AuctionBehavior {
 //		System.out.println("Agent " + agent.id() + " has tasks " + tasks);
 		long start = System.currentTimeMillis();
 
-		CentralizedPlanning centralizedPlanning = new CentralizedPlanning();
-
-		// Setup
-		centralizedPlanning.setup(this.distribution, this.agent);
-
 		// Plan
 		List<Plan> plans = centralizedPlanning.plan(vehicles, tasks);
 
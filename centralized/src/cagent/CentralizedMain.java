@@ -26,19 +26,37 @@ import logist.topology.Topology.City;
 @SuppressWarnings("unused")
 public class CentralizedMain implements CentralizedBehavior {
 
-    private static final double STARTING_TEMPERATURE = 100_000.;
-    private static final double FINAL_TEMPERATURE = 100.;
-    private static final double LAMBDA = FINAL_TEMPERATURE / STARTING_TEMPERATURE;
-    private static final double SECURE_FACTOR = 0.9;
-    private static final double PROBA_CHANGE_VEHICLE = 0.2;
+    // Random operators and their initial probabilities, adapted during the search
+    private static final int CHANGE_VEHICLE = 0;
+    private static final int CHANGE_TASK = 1;
+    private static final double[] OPERATOR_SHARES = { 0.2, 0.8 };
+    // Random moves of the initial solution sampled to calibrate the starting temperature
+    private static final int CALIBRATION_MOVES = 100;
+    // Random reorderings insert the actions of a task after an action in one of the CANDIDATE_CITIES nearest cities
+    private static final int CANDIDATE_CITIES = 4;
     private static final int TEMP_DECREASE_FACTOR = 4;
+    // Construction heuristics tried for the initial solution, the first one always finishes
+    private static final Construction[] CONSTRUCTIONS = { new SequentialConstruction(), new RegretInsertion(1),
+            new RegretInsertion(2), new RegretInsertion(3) };
+    // Share of the planning time given to the constructions
+    private static final double CONSTRUCTION_FACTOR = 0.1;
+    // Number of moves kept in the undo journal before the best solution is copied
+    private static final int JOURNAL_CAPACITY = 1 << 16;
+    // The search stops once its best cost is within GAP of the lower bound of the optimum
+    private static final double GAP = 0.02;
 
     private Topology topology;
+    private TopologyIndex index;
+    private GranularNeighborhood granular;
+    private LowerBound lowerBound;
     private TaskDistribution distribution;
     private Agent agent;
     private long timeout_setup;
     private long timeout_plan;
     private Random random;
+    // Best solutions of the previous plannings, the next one starts from the closest one
+    private final SolutionStore store = new SolutionStore();
+    private final MoveCursor cursor = new MoveCursor();
 
     @Override
     public void setup(Topology topology, TaskDistribution distribution, Agent agent) {
@@ -58,6 +76,9 @@ public class CentralizedMain implements CentralizedBehavior {
         System.out.println("Plan has " + timeout_plan + "ms to finish");
 
         this.topology = topology;
+        this.index = new TopologyIndex(topology);
+        this.granular = new GranularNeighborhood(index, CANDIDATE_CITIES);
+        this.lowerBound = new LowerBound(index);
         this.distribution = distribution;
         this.agent = agent;
         this.random = new Random(2019);
@@ -80,76 +101,102 @@ public class CentralizedMain implements CentralizedBehavior {
         /*
          * Initialization
          */
-        ActionEntry[] currentSolution = initialSolution(vehicles, tasks);
-        int iteration = 0;
-        double temperature = STARTING_TEMPERATURE;
+        Solution currentSolution = store.seed(vehicles, tasks.toArray(new Task[0]), index,
+                time_start + Math.round(timeout_plan * CONSTRUCTION_FACTOR));
+        if (currentSolution == null) {
+            currentSolution = initialSolution(vehicles, tasks, Math.round(timeout_plan * CONSTRUCTION_FACTOR));
+        }
+        // a rollback restores the initial solution until a better one is found
+        currentSolution.commit();
+        DeadlineScheduler scheduler = new DeadlineScheduler(time_start, timeout_plan);
+        // the temperature and the mix of random operators are tuned online
+        AnnealingController controller = new AnnealingController(OPERATOR_SHARES);
+        for (int i = 0; i < CALIBRATION_MOVES; i++) {
+            Move m = computeRandomNeighbor(currentSolution, vehicles, controller.operator(random));
+            if (m != null) {
+                controller.sample(m.delta);
+            }
+        }
+        double temperature = controller.start(1.);
+        double proba_linear = 1.;
         double lastTemp = temperature;
-        ActionEntry[] best = currentSolution;
-        double bestCost = computeCost(currentSolution, vehicles);
+        // null while a rollback of the current solution restores the best solution
+        Solution best = null;
+        double bestCost = currentSolution.cost();
         double currentCost = bestCost;
-        double currentTime = 0.;
-        double sumP = 0.;
-        int countP = 0;
+        double target = lowerBound.of(vehicles, currentSolution) * (1. + GAP);
 
         /*
          * Stochastic Local Search algorithm for COP
          */
 
-        do {
-            ActionEntry[] selectedN;
+        while (bestCost > target && scheduler.next()) {
+            Move selectedN;
+            // operator of the random neighbor, -1 for a best neighbor
+            int operator = -1;
 
-            // Linearly decreasing temperature
-            double temp_linear = STARTING_TEMPERATURE - (STARTING_TEMPERATURE - FINAL_TEMPERATURE) * (currentTime - time_start) / (timeout_plan * SECURE_FACTOR);
-            double proba_linear = (temp_linear - FINAL_TEMPERATURE) / (STARTING_TEMPERATURE - FINAL_TEMPERATURE);
+            if (scheduler.sampled()) {
+                // Linearly decreasing probability of a random neighbor
+                proba_linear = 1. - scheduler.progress();
+            }
+            temperature = controller.temperature();
 
             if (random.nextDouble() < proba_linear) {
                 // OPTION 1: Compute (almost) random neighbor
-                selectedN = computeRandomNeighbor(currentSolution, vehicles);
+                operator = controller.operator(random);
+                selectedN = computeRandomNeighbor(currentSolution, vehicles, operator);
             } else {
                 // OPTION 2: Get best neighbor of neighborSet for a random task & vehicle.
-                List<ActionEntry[]> neighbors = computeNeighbors(currentSolution, vehicles);
-                if (neighbors.isEmpty()) {
-                    currentTime = System.currentTimeMillis();
+                selectedN = computeBestNeighbor(currentSolution, vehicles);
+                if (selectedN == null) {
                     continue;
                 }
-                selectedN = selecBestNeighbor(neighbors, vehicles);
             }
 
             /*
              * Simulated Annealing component
+             *
+             * A missing neighbor stands for staying at the current solution.
              */
-            double costN = computeCost(selectedN, vehicles);
+            double costN = selectedN == null ? currentCost : currentCost + selectedN.delta;
+            if (operator >= 0) {
+                controller.reward(operator, costN < currentCost);
+            }
 
             // OPTION 1: If the cost is better change automatically
             if (costN < currentCost) {
                 currentCost = costN;
-                currentSolution = selectedN;
-                // If this is the best cost found yet, save it
+                selectedN.applyTo(currentSolution);
+                // If this is the best cost found yet, remember it without copying the solution
                 if (costN < bestCost) {
                     bestCost = costN;
-                    best = selectedN;
+                    currentSolution.commit();
+                    best = null;
                 }
             } else {
                 // OPTION 2: With exp decreasing probability change anyways
                 double p = Math.exp((currentCost - costN) / temperature);
-                sumP += p;
-                if (p < 0.9 && p > 0.1) {
-                    countP++;
+                boolean accepted = p > random.nextDouble() && selectedN != null;
+                if (costN > currentCost) {
+                    controller.worsening(accepted, scheduler.progress());
                 }
 
-                if (p > random.nextDouble()) {
+                if (accepted) {
                     currentCost = costN;
-                    currentSolution = selectedN;
+                    selectedN.applyTo(currentSolution);
                 }
             }
 
             /*
              * End of step updates
              */
-            currentTime = System.currentTimeMillis();
-            temperature = STARTING_TEMPERATURE
-                    * Math.pow(LAMBDA, (currentTime - time_start) / (timeout_plan * SECURE_FACTOR));
-            iteration++;
+            // Bound the journal when the search does not improve for a long time
+            if (currentSolution.journalSize() > JOURNAL_CAPACITY) {
+                if (best == null) {
+                    best = currentSolution.committed();
+                }
+                currentSolution.commit();
+            }
 
             /*
              * Additional mechanism: Every time temperature decreases by factor "tempDecreaseFactor", restart at
@@ -158,32 +205,39 @@ public class CentralizedMain implements CentralizedBehavior {
             if (lastTemp / TEMP_DECREASE_FACTOR > temperature) {
                 lastTemp = temperature;
                 currentCost = bestCost;
-                currentSolution = best;
+                if (best == null) {
+                    currentSolution.rollback();
+                } else {
+                    currentSolution = best;
+                    currentSolution.commit();
+                    best = null;
+                }
             }
 
             /*
              * Print useful info while running planning
              */
-            if (iteration % 2000 == 0) {
-                System.out.println("it: " + String.format("%d", iteration) + "    time: "
-                        + String.format("%5.0f", currentTime - time_start) + "     temp: "
+            if (scheduler.iterations() % 2000 == 0) {
+                System.out.println("it: " + String.format("%d", scheduler.iterations()) + "    time: "
+                        + String.format("%5d", scheduler.elapsedMillis()) + "     temp: "
                         + String.format("%5.0f", temperature));
                 System.out.println("Best Cost: " + String.format("%6.0f", bestCost) + "    current cost:"
                         + String.format("%6.0f", currentCost));
-                System.out.println("AVG p = " + String.format("%1.3f", sumP / 2000) + "    counter p (0.1,0.9) = "
-                        + String.format("%d", countP));
+                System.out.println("Acceptance of worsening moves: " + String.format("%1.3f", controller.acceptance()));
                 System.out.println();
-                countP = 0;
-                sumP = 0;
             }
+        }
 
-            // end the loop once we approach the end of timeout
-        } while (currentTime - time_start < SECURE_FACTOR * timeout_plan);
+        if (best == null) {
+            currentSolution.rollback();
+            best = currentSolution;
+        }
+        store.save(best, bestCost);
 
         /*
          * Print final result
          */
-        System.out.println("\nAlgo did " + iteration + " iterations");
+        System.out.println("\nAlgo did " + scheduler.iterations() + " iterations");
         System.out.println("The final temperature was " + temperature);
         System.out.println("Final Cost: " + bestCost);
         System.out.println("Max Cost: " + computeMaxCost(best, vehicles));
@@ -191,23 +245,22 @@ public class CentralizedMain implements CentralizedBehavior {
 
         System.out.println("Plan:");
         for (Vehicle v : vehicles) {
-            System.out.println(best[v.id()]);
+            System.out.println(best.toString(v.id()));
         }
 
         /*
          * Construct plan
          */
+        ActionEntry[] bestActions = best.toActions();
         List<Plan> plans = new ArrayList<Plan>();
-        for (int vId = 0; vId < best.length; vId++) {
+        for (int vId = 0; vId < bestActions.length; vId++) {
             City current = vehicles.get(vId).getCurrentCity();
             Plan plan = new Plan(current);
 
-            ActionEntry next = best[vId].next;
+            ActionEntry next = bestActions[vId].next;
             while (next != null) {
                 City nextCity = next.pickup ? next.task.pickupCity : next.task.deliveryCity;
-                for (City city : current.pathTo(nextCity)) {
-                    plan.appendMove(city);
-                }
+                index.appendPath(plan, current, nextCity);
 
                 if (next.pickup) {
                     plan.appendPickup(next.task);
@@ -229,126 +282,91 @@ public class CentralizedMain implements CentralizedBehavior {
     }
 
     /**
-     * Create an initial solution
+     * Create an initial solution with each construction heuristic that finishes in time and keep the cheapest
      *
      * @param vehicles list of vehicles
      * @param tasks    set of tasks
-     * @return ActionEntry table
+     * @param timeout  the time in millisecond given to the constructions
+     * @return the initial solution
      */
-    private ActionEntry[] initialSolution(List<Vehicle> vehicles, TaskSet tasks) {
-        ActionEntry[] currentSolution = new ActionEntry[vehicles.size()];
-        for (int i = 0; i < vehicles.size(); i++) {
-            currentSolution[i] = new ActionEntry(i);
-        }
-
-        // assign all task to vehicles with biggest capacity
-        int maxCapacity = 0;
-        int vMaxCap = 0;
-        for (Vehicle v : vehicles) {
-            if (v.capacity() > maxCapacity) {
-                maxCapacity = v.capacity();
-                vMaxCap = v.id();
-            }
-        }
-
-        ActionEntry a = currentSolution[vMaxCap];
-        for (Task t : tasks) {
-            if (maxCapacity < t.weight) {
-                throw new IllegalStateException("No vehicles can carry task:\n " + t.toString());
+    private Solution initialSolution(List<Vehicle> vehicles, TaskSet tasks, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        Solution empty = new Solution(vehicles, tasks.toArray(new Task[0]), index);
+
+        Solution best = null;
+        for (Construction construction : CONSTRUCTIONS) {
+            Solution s = empty.copy();
+            if (construction.build(s, deadline) && (best == null || s.cost() < best.cost())) {
+                best = s;
             }
-            ActionEntry newA = new ActionEntry(t, true);
-            a.add(newA);
-            a = newA;
-            newA = new ActionEntry(t, false);
-            a.add(newA);
-            a = newA;
         }
-
-        for (int i = 0; i < vehicles.size(); i++) {
-            currentSolution[i].updateTimeAndLoad(Integer.MAX_VALUE);
-        }
-
-        return currentSolution;
+        return best;
     }
 
     /**
-     * Choose multiple neighbors of a solution
+     * Find the best neighbor of a solution, keeping only the descriptor of the cheapest move
      *
-     * @return a list of valid neighbors of the solution
+     * @return the best valid move from the solution, or null if there is none
      */
-    private List<ActionEntry[]> computeNeighbors(ActionEntry[] solution, List<Vehicle> vehicles) {
-
-        List<ActionEntry[]> neighbors = new ArrayList<>();
+    private Move computeBestNeighbor(Solution solution, List<Vehicle> vehicles) {
 
         // select random vehicle with a task
-        int randomVid = random.nextInt(solution.length);
-        while (solution[randomVid].next == null) {
-            randomVid = random.nextInt(solution.length);
-        }
+        int randomVid = randomVehicleWithTasks(solution);
+
+        int bestV = -1;
+        int bestT = 0;
+        int bestP = 0;
+        int bestD = 0;
+        double bestDelta = Double.POSITIVE_INFINITY;
 
         /*
          * Change a task from one vehicle to another
          */
+        int first = Solution.taskOf(solution.action(randomVid, 0));
         for (int vId = 0; vId < vehicles.size(); vId++) {
-            if (vId == randomVid) {
+            if (vId == randomVid || !solution.canMove(first, vId, 0, 1)) {
                 continue;
             }
-            ActionEntry[] a = ActionEntry.copy(solution);
-            boolean valid = changeVTask(a, vehicles, randomVid, vId);
-            if (valid) {
-                neighbors.add(a);
+            double delta = solution.moveDelta(first, vId, 0, 1);
+            if (bestV < 0 || delta < bestDelta) {
+                bestV = vId;
+                bestT = first;
+                bestP = 0;
+                bestD = 1;
+                bestDelta = delta;
             }
-
         }
 
         /*
          * Changing task order
          */
-        // compute length
-        ActionEntry c = solution[randomVid].next;
-        while (c.next != null) {
-            c = c.next;
-        }
-        int lenght = c.time;
+        int length = solution.size(randomVid);
 
         // pick random task
-        int tId = random.nextInt(lenght) + 1;
-        c = solution[randomVid].next;
-        while (c.time != tId) {
-            c = c.next;
-        }
-
-        Task t = c.task;
+        int t = Solution.taskOf(solution.action(randomVid, random.nextInt(length)));
 
         // For all positions
-        for (int iP = 1; iP < lenght; iP++) {
-            int iD = iP + 1;
-            boolean valid = true;
-            boolean sameFound = true;
-
-            while ((valid || sameFound) && iD <= lenght) {
-
-                ActionEntry[] a = ActionEntry.copy(solution);
-                valid = changeTaskOrder(a, vehicles, randomVid, t, iP, iD);
-                if (valid) {
-                    neighbors.add(a);
-                } else {
-                    valid = sameFound;
-                    sameFound = false;
-                }
-                iD++;
+        cursor.reset(solution, t, randomVid);
+        while (cursor.next()) {
+            if (bestV < 0 || cursor.delta() < bestDelta) {
+                bestV = randomVid;
+                bestT = t;
+                bestP = cursor.pickupTime();
+                bestD = cursor.deliveryTime();
+                bestDelta = cursor.delta();
             }
         }
-        return neighbors;
+        return bestV < 0 ? null : new Move(bestT, bestV, bestP, bestD, bestDelta);
     }
 
     /**
      * @param currentSolution
      * @param vehicles
-     * @return
+     * @param operator        the random operator, CHANGE_VEHICLE or CHANGE_TASK
+     * @return a random valid move, or null if none was found
      */
-    private ActionEntry[] computeRandomNeighbor(ActionEntry[] currentSolution, List<Vehicle> vehicles) {
-        if (random.nextDouble() < PROBA_CHANGE_VEHICLE) {
+    private Move computeRandomNeighbor(Solution currentSolution, List<Vehicle> vehicles, int operator) {
+        if (operator == CHANGE_VEHICLE) {
             return computeRandomChangeV(currentSolution, vehicles);
         }
         return computeRandomChangeT(currentSolution, vehicles);
@@ -359,42 +377,30 @@ public class CentralizedMain implements CentralizedBehavior {
      * @param vehicles
      * @return
      */
-    private ActionEntry[] computeRandomChangeT(ActionEntry[] solution, List<Vehicle> vehicles) {
-        int randomVid = random.nextInt(solution.length);
+    private Move computeRandomChangeT(Solution solution, List<Vehicle> vehicles) {
+        int randomVid = random.nextInt(solution.vehicleCount());
         int i = 0;
-        while (solution[randomVid].next == null || solution[randomVid].next.next.next == null) {
-            randomVid = random.nextInt(solution.length);
+        while (solution.size(randomVid) < 4) {
+            randomVid = random.nextInt(solution.vehicleCount());
             if (++i > 10000) {
-                return solution;
+                return null;
             }
         }
 
-        // compute length
-        ActionEntry c = solution[randomVid].next;
-        while (c.next != null) {
-            c = c.next;
-        }
-        int lenght = c.time;
-
         // pick random task
-        int tId = random.nextInt(lenght) + 1;
-        c = solution[randomVid].next;
-        while (c.time != tId) {
-            c = c.next;
-        }
-        Task t = c.task;
+        int length = solution.size(randomVid);
+        int t = Solution.taskOf(solution.action(randomVid, random.nextInt(length)));
 
         int j = 0;
         while (j++ < 10000) {
-            int iP = random.nextInt(lenght - 1) + 1;
-            int iD = random.nextInt(lenght - iP) + iP + 1;
-            ActionEntry[] a = ActionEntry.copy(solution);
-            boolean valid = changeTaskOrder(a, vehicles, randomVid, t, iP, iD);
-            if (valid) {
-                return a;
+            int times = granular.draw(solution, t, randomVid, random);
+            Move m = changeTaskOrder(solution, t, GranularNeighborhood.pickupTime(times),
+                    GranularNeighborhood.deliveryTime(times));
+            if (m != null) {
+                return m;
             }
         }
-        return solution;
+        return null;
     }
 
     /**
@@ -402,140 +408,61 @@ public class CentralizedMain implements CentralizedBehavior {
      * @param vehicles
      * @return
      */
-    private ActionEntry[] computeRandomChangeV(ActionEntry[] solution, List<Vehicle> vehicles) {
-        int randomVid = random.nextInt(solution.length);
-        while (solution[randomVid].next == null) {
-            randomVid = random.nextInt(solution.length);
-        }
+    private Move computeRandomChangeV(Solution solution, List<Vehicle> vehicles) {
+        int randomVid = randomVehicleWithTasks(solution);
         int i = 0;
         while (i++ < 1000) {
             int vId = random.nextInt(vehicles.size());
             if (vId == randomVid) {
                 continue;
             }
-            ActionEntry[] a = ActionEntry.copy(solution);
-            boolean valid = changeVTask(a, vehicles, randomVid, vId);
-            if (valid) {
-                return a;
+            Move m = changeVTask(solution, randomVid, vId);
+            if (m != null) {
+                return m;
             }
         }
         // no neighbors where valid
-        return solution;
+        return null;
     }
 
     /**
-     * Change the order of tasks inside a vehicle
-     *
-     * @return true if the change is valid
+     * @param solution a solution with at least one task
+     * @return a random vehicle that has at least one task
      */
-    private boolean changeTaskOrder(ActionEntry[] a, List<Vehicle> vehicles, int randomVid, Task task, int iP, int iD) {
-
-        ActionEntry pick = a[randomVid].next;
-        while (pick.task != task) {
-            pick = pick.next;
+    private int randomVehicleWithTasks(Solution solution) {
+        int randomVid = random.nextInt(solution.vehicleCount());
+        while (solution.size(randomVid) == 0) {
+            randomVid = random.nextInt(solution.vehicleCount());
         }
-        ActionEntry deli = pick.next;
-        while (deli.task != pick.task) {
-            deli = deli.next;
-        }
-
-        // if the order is the same as solution
-        if (iP == pick.time && iD == deli.time) {
-            iD++;
-            return false;
-        }
-        pick.remove();
-        deli.remove();
-        a[randomVid].updateTimeAndLoad(vehicles.get(randomVid).capacity());
-
-        ActionEntry next = a[randomVid];
-        while (next.time != iP - 1) {
-            next = next.next;
-        }
-        next.add(pick);
-        pick.time = next.time;
-        next = pick;
-        while (next.time != iD - 2) {
-            next = next.next;
-        }
-        next.add(deli);
-
-        // if valid add to neighbors
-        return a[randomVid].updateTimeAndLoad(vehicles.get(randomVid).capacity());
+        return randomVid;
     }
 
     /**
-     * move a task from one vehicle to another
+     * Change the order of a task inside its vehicle
      *
-     * @param a
-     * @param vehicles
-     * @param from
-     * @param to
-     * @return true if the solution is valid
+     * @return the move, or null if the change is not valid
      */
-    private boolean changeVTask(ActionEntry[] a, List<Vehicle> vehicles, int from, int to) {
-        ActionEntry toMoveP = a[from].next;
-        ActionEntry toMoveD = toMoveP.next;
-
-        // Find the delivery of the task
-        while (toMoveP.task != toMoveD.task) {
-            // faster
-            toMoveD = toMoveD.next;
-        }
-
-        // remove them from first vehicle
-        toMoveD.remove();
-        toMoveP.remove();
-
-        // add them to new vehicle
-        a[to].add(toMoveP);
-        toMoveP.add(toMoveD);
-
-        // update time and load, if valid add to neighbors
-        boolean valid = a[to].updateTimeAndLoad(vehicles.get(to).capacity());
-        valid &= a[from].updateTimeAndLoad(vehicles.get(from).capacity());
-        return valid;
-    }
+    private Move changeTaskOrder(Solution a, int t, int iP, int iD) {
+        int vId = a.vehicleOf(t);
 
-    /**
-     * Select one neighbors amongst all the neighbors
-     *
-     * @return the selected neighbor
-     */
-    private ActionEntry[] selecBestNeighbor(List<ActionEntry[]> neighbors, List<Vehicle> vehicles) {
-
-        ActionEntry[] best = null;
-        double bestCost = Double.POSITIVE_INFINITY;
-        for (ActionEntry[] a : neighbors) {
-            double cost = computeCost(a, vehicles);
-            if (cost < bestCost) {
-                bestCost = cost;
-                best = a;
-            }
+        // if the order is the same as solution
+        if (a.isAt(t, vId, iP, iD)) {
+            return null;
         }
-
-        return best;
-
+        return Move.evaluate(a, t, vId, iP, iD);
     }
 
     /**
-     * @param actions
-     * @param vehicles
-     * @return
+     * move the first task of a vehicle to the beginning of another
+     *
+     * @param a
+     * @param from
+     * @param to
+     * @return the move, or null if the solution would not be valid
      */
-    private double computeCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-        double sum = 0;
-        int i = 0;
-        double max = 0;
-        for (ActionEntry a : actions) {
-            double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
-            sum += cost;
-            if (max < cost) {
-                max = cost;
-            }
-            i++;
-        }
-        return sum;
+    private Move changeVTask(Solution a, int from, int to) {
+        int t = Solution.taskOf(a.action(from, 0));
+        return Move.evaluate(a, t, to, 0, 1);
     }
 
     /**
@@ -543,15 +470,8 @@ public class CentralizedMain implements CentralizedBehavior {
      * @param vehicles
      * @return the sum of vehicles cost
      */
-    private double computeSumCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-        double sum = 0;
-        int i = 0;
-        for (ActionEntry a : actions) {
-            double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
-            sum += cost;
-            i++;
-        }
-        return sum;
+    private double computeSumCost(Solution actions, List<Vehicle> vehicles) {
+        return actions.cost();
     }
 
 
@@ -560,15 +480,13 @@ public class CentralizedMain implements CentralizedBehavior {
      * @param vehicles
      * @return the maximum vehicleCost
      */
-    private double computeMaxCost(ActionEntry[] actions, List<Vehicle> vehicles) {
-        int i = 0;
+    private double computeMaxCost(Solution actions, List<Vehicle> vehicles) {
         double max = 0;
-        for (ActionEntry a : actions) {
-            double cost = a.cost(vehicles.get(i).homeCity()) * vehicles.get(i).costPerKm();
+        for (int i = 0; i < actions.vehicleCount(); i++) {
+            double cost = actions.vehicleCost(i);
             if (max < cost) {
                 max = cost;
             }
-            i++;
         }
         return max;
     }
@@ -0,0 +1,111 @@
+package cagent;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of costs keyed by 64-bit hashes.
+ * <p>
+ * The cache is set associative: a key can only be stored in the WAYS slots of the set selected by its low bits, and a
+ * full set evicts with the CLOCK policy, giving a second chance to the slots read since the hand last passed them.
+ * Keys are expected to be well mixed hashes, a collision of two 64-bit hashes is ignored.
+ */
+class CostCache {
+
+	private static final int WAYS = 4;
+	private static final long EMPTY = 0L;
+
+	private final long[] keys;
+	private final double[] values;
+	private final boolean[] referenced;
+	private final int[] hands;
+	private final int mask;
+
+	/**
+	 * @param bits the capacity of the cache is WAYS * 2^bits entries
+	 */
+	public CostCache(int bits) {
+		this.keys = new long[WAYS << bits];
+		this.values = new double[WAYS << bits];
+		this.referenced = new boolean[WAYS << bits];
+		this.hands = new int[1 << bits];
+		this.mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * @param key the hash of the evaluated object
+	 * @return the cost stored for key, NaN if it is not in the cache
+	 */
+	public double get(long key) {
+		key = nonEmpty(key);
+		int first = set(key) * WAYS;
+		for (int i = first; i < first + WAYS; i++) {
+			if (keys[i] == key) {
+				referenced[i] = true;
+				return values[i];
+			}
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * @param key the hash of the evaluated object
+	 * @return true if key is in the cache
+	 */
+	public boolean contains(long key) {
+		return !Double.isNaN(get(key));
+	}
+
+	/**
+	 * Store the cost of key, evicting the first slot of its set not read since the hand last passed it
+	 *
+	 * @param key  the hash of the evaluated object
+	 * @param cost its cost
+	 */
+	public void put(long key, double cost) {
+		key = nonEmpty(key);
+		int set = set(key);
+		int first = set * WAYS;
+		for (int i = first; i < first + WAYS; i++) {
+			if (keys[i] == key || keys[i] == EMPTY) {
+				keys[i] = key;
+				values[i] = cost;
+				return;
+			}
+		}
+		int hand = hands[set];
+		while (referenced[first + hand]) {
+			referenced[first + hand] = false;
+			hand = (hand + 1) % WAYS;
+		}
+		keys[first + hand] = key;
+		values[first + hand] = cost;
+		hands[set] = (hand + 1) % WAYS;
+	}
+
+	/**
+	 * Remove all entries
+	 */
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		Arrays.fill(referenced, false);
+	}
+
+	private int set(long key) {
+		return (int) (key >>> 32) & mask;
+	}
+
+	private static long nonEmpty(long key) {
+		return key == EMPTY ? 1L : key;
+	}
+
+	/**
+	 * Finalizer of the SplitMix64 generator
+	 *
+	 * @return a well mixed 64-bit hash of x
+	 */
+	public static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+		x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+		return x ^ (x >>> 31);
+	}
+}
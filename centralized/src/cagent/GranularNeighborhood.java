@@ -0,0 +1,70 @@
+package cagent;
+
+import java.util.Random;
+
+/**
+ * Random insertion positions restricted to the neighborhood of a task.
+ * <p>
+ * The pickup of a task is only inserted right after an action, or the home of the vehicle, located in one of the k
+ * nearest cities of its pickup city, and likewise for the delivery. The delivery may also directly follow the pickup.
+ * The positions are drawn uniformly among the candidates by reservoir sampling, so nothing is allocated. When no
+ * position qualifies, the pickup is drawn uniformly instead.
+ */
+class GranularNeighborhood {
+
+	private final TopologyIndex index;
+	private final int k;
+
+	/**
+	 * @param index the distances of the topology
+	 * @param k     the number of nearest cities, the city of the action included, after which an action may be inserted
+	 */
+	public GranularNeighborhood(TopologyIndex index, int k) {
+		this.index = index;
+		this.k = k;
+	}
+
+	/**
+	 * Draw the times of a move of a task into a vehicle, which may be its own vehicle
+	 *
+	 * @return the pickup and delivery times packed with {@link #pack(int, int)}
+	 */
+	public int draw(Solution solution, int t, int v, Random random) {
+		int n = solution.size(v) + (solution.vehicleOf(t) == v ? 0 : 2);
+		int pick = solution.task(t).pickupCity.id;
+		int deli = solution.task(t).deliveryCity.id;
+
+		int iP = -1;
+		int count = 0;
+		for (int i = 0; i < n - 1; i++) {
+			if (index.isNear(pick, solution.cityBefore(t, v, i), k) && random.nextInt(++count) == 0) {
+				iP = i;
+			}
+		}
+		if (iP < 0) {
+			iP = random.nextInt(n - 1);
+		}
+
+		// the action before a delivery at time i > iP + 1 is the one at time i - 2 without the task
+		int iD = iP + 1;
+		count = 1;
+		for (int i = iP + 2; i < n; i++) {
+			if (index.isNear(deli, solution.cityBefore(t, v, i - 1), k) && random.nextInt(++count) == 0) {
+				iD = i;
+			}
+		}
+		return pack(iP, iD);
+	}
+
+	public static int pack(int pickupTime, int deliveryTime) {
+		return pickupTime << 16 | deliveryTime;
+	}
+
+	public static int pickupTime(int times) {
+		return times >>> 16;
+	}
+
+	public static int deliveryTime(int times) {
+		return times & 0xFFFF;
+	}
+}
@@ -0,0 +1,87 @@
+package cagent;
+
+import java.util.List;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+
+/**
+ * Lower bound of the cost of any plan of a set of tasks, which proves how far a solution is from the optimum.
+ * <p>
+ * Two bounds are combined. The routes of the vehicles, linked by a root to their homes, connect all the pickup and
+ * delivery cities, so they are at least as long as the minimum spanning tree of these cities where the root reaches
+ * each city from its closest home. The tree is paid at the lowest cost per kilometer. Besides, the vehicle carrying a
+ * task drives at least from its home to the pickup city and then to the delivery city, which bounds the cost of the
+ * most expensive task. The second bound is exact for a single task.
+ */
+class LowerBound {
+
+	private final TopologyIndex index;
+
+	/**
+	 * @param index the distances of the topology
+	 */
+	public LowerBound(TopologyIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * @param vehicles the vehicles of the company
+	 * @param solution a solution containing all the tasks to plan, whatever their assignment
+	 * @return a lower bound of the cost of every plan of the tasks of the solution
+	 */
+	public double of(List<Vehicle> vehicles, Solution solution) {
+		int n = index.size();
+		boolean[] required = new boolean[n];
+		double minCostPerKm = Double.POSITIVE_INFINITY;
+		for (Vehicle v : vehicles) {
+			minCostPerKm = Math.min(minCostPerKm, v.costPerKm());
+		}
+
+		// the most expensive task, each carried by its cheapest vehicle
+		double taskBound = 0.;
+		for (int t = 0; t < solution.taskCount(); t++) {
+			Task task = solution.task(t);
+			required[task.pickupCity.id] = true;
+			required[task.deliveryCity.id] = true;
+			double cheapest = Double.POSITIVE_INFINITY;
+			for (Vehicle v : vehicles) {
+				if (task.weight <= v.capacity()) {
+					double distance = index.distance(v.homeCity(), task.pickupCity)
+							+ index.distance(task.pickupCity, task.deliveryCity);
+					cheapest = Math.min(cheapest, distance * v.costPerKm());
+				}
+			}
+			if (cheapest < Double.POSITIVE_INFINITY) {
+				taskBound = Math.max(taskBound, cheapest);
+			}
+		}
+
+		// Prim from the root, which reaches each city from the closest home
+		double[] keys = new double[n];
+		for (int c = 0; c < n; c++) {
+			keys[c] = Double.POSITIVE_INFINITY;
+			for (Vehicle v : vehicles) {
+				keys[c] = Math.min(keys[c], index.distance(v.homeCity().id, c));
+			}
+		}
+		double tree = 0.;
+		while (true) {
+			int next = -1;
+			for (int c = 0; c < n; c++) {
+				if (required[c] && (next < 0 || keys[c] < keys[next])) {
+					next = c;
+				}
+			}
+			if (next < 0) {
+				break;
+			}
+			tree += keys[next];
+			required[next] = false;
+			for (int c = 0; c < n; c++) {
+				keys[c] = Math.min(keys[c], index.distance(next, c));
+			}
+		}
+		return Math.max(taskBound, tree * minCostPerKm);
+	}
+}
@@ -0,0 +1,43 @@
+package cagent;
+
+/**
+ * Move of the stochastic local search: the task is moved to the given vehicle with its pickup and delivery at the
+ * given times. The cost change is computed before the move is applied, so rejected moves never touch the solution.
+ */
+class Move implements Neighbor {
+	public final int task;
+	public final int vehicle;
+	public final int pickupTime;
+	public final int deliveryTime;
+	public final double delta;
+
+	public Move(int task, int vehicle, int pickupTime, int deliveryTime, double delta) {
+		this.task = task;
+		this.vehicle = vehicle;
+		this.pickupTime = pickupTime;
+		this.deliveryTime = deliveryTime;
+		this.delta = delta;
+	}
+
+	/**
+	 * Evaluate a move on a solution
+	 *
+	 * @return the move with its cost change, or null if it does not respect the capacity of the vehicle
+	 */
+	public static Move evaluate(Solution s, int task, int vehicle, int pickupTime, int deliveryTime) {
+		if (!s.canMove(task, vehicle, pickupTime, deliveryTime)) {
+			return null;
+		}
+		return new Move(task, vehicle, pickupTime, deliveryTime, s.moveDelta(task, vehicle, pickupTime, deliveryTime));
+	}
+
+	@Override
+	public double delta() {
+		return delta;
+	}
+
+	@Override
+	public void applyTo(Solution s) {
+		s.moveTask(task, vehicle, pickupTime, deliveryTime);
+	}
+}
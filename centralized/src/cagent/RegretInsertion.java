@@ -0,0 +1,123 @@
+package cagent;
+
+import java.util.Arrays;
+
+/**
+ * Parallel insertion over all vehicles: at each step one unassigned task is inserted at its cheapest position.
+ * <p>
+ * The task is the one with the largest regret, the sum of the differences between its cheapest insertion in each of
+ * its k best vehicles and its cheapest insertion overall. With k = 1 this is the cheapest insertion heuristic. Tasks
+ * that fit in fewer than k vehicles come first.
+ */
+class RegretInsertion implements Construction {
+
+	private final int k;
+
+	/**
+	 * @param k the number of vehicles looked at by the regret, 1 for cheapest insertion
+	 */
+	public RegretInsertion(int k) {
+		this.k = k;
+	}
+
+	@Override
+	public boolean build(Solution solution, long deadline) {
+		int nTasks = solution.taskCount();
+		int nVehicles = solution.vehicleCount();
+
+		// cheapest insertion of each unassigned task in each vehicle, null if the task does not fit
+		Move[][] insertions = new Move[nTasks][nVehicles];
+		boolean[] unassigned = new boolean[nTasks];
+		int remaining = 0;
+		MoveCursor cursor = new MoveCursor();
+		for (int t = 0; t < nTasks; t++) {
+			if (solution.vehicleOf(t) == Solution.UNASSIGNED) {
+				unassigned[t] = true;
+				remaining++;
+				for (int v = 0; v < nVehicles; v++) {
+					insertions[t][v] = cheapestInsertion(solution, t, v, cursor);
+				}
+			}
+		}
+
+		double[] costs = new double[nVehicles];
+		while (remaining > 0) {
+			if (System.currentTimeMillis() > deadline) {
+				return false;
+			}
+
+			// find the task with the largest regret
+			int bestTask = -1;
+			double bestRegret = Double.NEGATIVE_INFINITY;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int t = 0; t < nTasks; t++) {
+				if (!unassigned[t]) {
+					continue;
+				}
+				for (int v = 0; v < nVehicles; v++) {
+					costs[v] = insertions[t][v] == null ? Double.POSITIVE_INFINITY : insertions[t][v].delta;
+				}
+				Arrays.sort(costs);
+				if (costs[0] == Double.POSITIVE_INFINITY) {
+					throw new IllegalStateException("No vehicles can carry task:\n " + solution.task(t).toString());
+				}
+
+				double regret = k == 1 ? -costs[0] : 0;
+				for (int i = 1; i < k; i++) {
+					// a missing vehicle counts as an infinite regret
+					regret += (i < nVehicles ? costs[i] : Double.POSITIVE_INFINITY) - costs[0];
+				}
+				if (regret > bestRegret || (regret == bestRegret && costs[0] < bestCost)) {
+					bestTask = t;
+					bestRegret = regret;
+					bestCost = costs[0];
+				}
+			}
+
+			// insert it at its cheapest position
+			Move best = null;
+			for (Move m : insertions[bestTask]) {
+				if (m != null && (best == null || m.delta < best.delta)) {
+					best = m;
+				}
+			}
+			best.applyTo(solution);
+			unassigned[bestTask] = false;
+			remaining--;
+
+			// only the insertions in the modified vehicle have changed
+			for (int t = 0; t < nTasks; t++) {
+				if (unassigned[t]) {
+					insertions[t][best.vehicle] = cheapestInsertion(solution, t, best.vehicle, cursor);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the cheapest insertion of unassigned task t in vehicle v, or null if it does not fit anywhere
+	 */
+	public static Move cheapestInsertion(Solution solution, int t, int v) {
+		return cheapestInsertion(solution, t, v, new MoveCursor());
+	}
+
+	/**
+	 * @param cursor the cursor used to enumerate the positions, only the cheapest one is allocated
+	 * @return the cheapest insertion of unassigned task t in vehicle v, or null if it does not fit anywhere
+	 */
+	public static Move cheapestInsertion(Solution solution, int t, int v, MoveCursor cursor) {
+		int bestP = -1;
+		int bestD = 0;
+		double bestDelta = Double.POSITIVE_INFINITY;
+		cursor.reset(solution, t, v);
+		while (cursor.next()) {
+			if (bestP < 0 || cursor.delta() < bestDelta) {
+				bestP = cursor.pickupTime();
+				bestD = cursor.deliveryTime();
+				bestDelta = cursor.delta();
+			}
+		}
+		return bestP < 0 ? null : new Move(t, v, bestP, bestD, bestDelta);
+	}
+}
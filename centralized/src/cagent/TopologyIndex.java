@@ -0,0 +1,112 @@
+package cagent;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import logist.plan.Plan;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+/**
+ * Dense lookup tables of a topology, built once during the setup of an agent.
+ * <p>
+ * Cities are indexed by their id. The distance between every pair of cities and the next city on the shortest path
+ * between them are stored in arrays, so that planning and bidding loops never ask the topology for a path. Each city
+ * also ranks the other cities by increasing distance, which restricts neighborhoods to the k nearest cities.
+ */
+class TopologyIndex {
+
+	private final City[] cities;
+	private final double[][] distances;
+	private final short[][] nextHops;
+	// Rank of each city among the cities sorted by increasing distance from a city, 0 for the city itself
+	private final short[][] ranks;
+
+	public TopologyIndex(Topology topology) {
+		int n = topology.size();
+		this.cities = new City[n];
+		for (City c : topology) {
+			cities[c.id] = c;
+		}
+
+		this.distances = new double[n][n];
+		this.nextHops = new short[n][n];
+		for (City from : cities) {
+			for (City to : cities) {
+				distances[from.id][to.id] = from.distanceTo(to);
+				List<City> path = from.pathTo(to);
+				nextHops[from.id][to.id] = (short) (path.isEmpty() ? from.id : path.get(0).id);
+			}
+		}
+
+		this.ranks = new short[n][n];
+		Integer[] order = new Integer[n];
+		for (int from = 0; from < n; from++) {
+			for (int c = 0; c < n; c++) {
+				order[c] = c;
+			}
+			double[] row = distances[from];
+			int self = from;
+			// ties are broken by id, the city itself always comes first
+			Arrays.sort(order, Comparator.<Integer>comparingDouble(c -> c == self ? -1. : row[c]).thenComparing(c -> c));
+			for (int rank = 0; rank < n; rank++) {
+				ranks[from][order[rank]] = (short) rank;
+			}
+		}
+	}
+
+	public int size() {
+		return cities.length;
+	}
+
+	public City city(int id) {
+		return cities[id];
+	}
+
+	public double distance(int from, int to) {
+		return distances[from][to];
+	}
+
+	public double distance(City from, City to) {
+		return distances[from.id][to.id];
+	}
+
+	/**
+	 * @return true if other is one of the k nearest cities of city, the city itself included
+	 */
+	public boolean isNear(int city, int other, int k) {
+		return ranks[city][other] < k;
+	}
+
+	/**
+	 * @return the id of the city following from on the shortest path to to, or from itself if both are equal
+	 */
+	public int nextHop(int from, int to) {
+		return nextHops[from][to];
+	}
+
+	/**
+	 * Append to a plan the moves along the shortest path between two cities
+	 */
+	public void appendPath(Plan plan, City from, City to) {
+		for (int c = from.id; c != to.id;) {
+			c = nextHops[c][to.id];
+			plan.appendMove(cities[c]);
+		}
+	}
+
+	/**
+	 * @return true if city is one of the cities visited on the shortest path between from and to, both included
+	 */
+	public boolean pathContains(City from, City to, City city) {
+		int c = from.id;
+		while (c != city.id) {
+			if (c == to.id) {
+				return false;
+			}
+			c = nextHops[c][to.id];
+		}
+		return true;
+	}
+}
@@ -75,13 +75,13 @@ public class DeliberativeAgent implements DeliberativeBehavior {
 			double max = 0.;
 
 			for (Task t : carriedTasks) {
-				double dist = location.distanceTo(t.deliveryCity);
+				double dist = index.distance(location, t.deliveryCity);
 				if (max < dist) {
 					max = dist;
 				}
 			}
 			for (Task t : tasksToDeliver) {
-				double dist = location.distanceTo(t.pickupCity) + t.pathLength();
+				double dist = index.distance(location, t.pickupCity) + index.distance(t.pickupCity, t.deliveryCity);
 				if (max < dist) {
 					max = dist;
 				}
@@ -129,6 +129,7 @@ public class DeliberativeAgent implements DeliberativeBehavior {
 
 	/* Environment */
 	Topology topology;
+	TopologyIndex index;
 	TaskDistribution td;
 
 	/* the properties of the agent */
@@ -143,6 +144,7 @@ public class DeliberativeAgent implements DeliberativeBehavior {
 	@Override
 	public void setup(Topology topology, TaskDistribution td, Agent agent) {
 		this.topology = topology;
+		this.index = new TopologyIndex(topology);
 		this.td = td;
 		this.agent = agent;
 
@@ -339,7 +341,7 @@ public class DeliberativeAgent implements DeliberativeBehavior {
 
 		// Option 1: Travel to neighbor city
 		for (City c : s.location.neighbors()) {
-			State suc = new State(c, s.carriedTasks, s.tasksToDeliver, s, c.distanceTo(s.location));
+			State suc = new State(c, s.carriedTasks, s.tasksToDeliver, s, index.distance(c, s.location));
 
 			successors.add(suc);
 		}
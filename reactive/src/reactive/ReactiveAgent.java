@@ -74,6 +74,7 @@ public class ReactiveAgent implements ReactiveBehavior {
 		this.myAgent = agent;
 
 		int numberOfCities = topology.cities().size();
+		TopologyIndex index = new TopologyIndex(topology);
 		this.Best = new HashMap<State, Integer>();
 		this.V = new HashMap<State, Double>();
 
@@ -138,7 +139,7 @@ public class ReactiveAgent implements ReactiveBehavior {
 							continue;
 						}
 
-						double cost = costPerKm * cityFrom.distanceTo(cityTo);
+						double cost = costPerKm * index.distance(cityFrom, cityTo);
 						double reward = -cost;
 
 						double q = getValueOfAction(cityTo, td, topology.cities(), reward, discount);
@@ -153,7 +154,7 @@ public class ReactiveAgent implements ReactiveBehavior {
 					// If there is a task available, compare it to the other options
 					if (taskAvailable) {
 						City cityTo = s.t;
-						double cost = costPerKm * cityFrom.distanceTo(cityTo);
+						double cost = costPerKm * index.distance(cityFrom, cityTo);
 						double reward = -cost + td.reward(cityFrom, cityTo); // Here the task reward is added
 
 						double q = getValueOfAction(cityTo, td, topology.cities(), reward, discount);
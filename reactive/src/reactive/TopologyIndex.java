@@ -0,0 +1,29 @@
+package reactive;
+
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+/**
+ * Dense lookup table of a topology, built once during the setup of an agent.
+ * <p>
+ * Cities are indexed by their id. The distance between every pair of cities is stored in an array, so that planning
+ * loops never ask the topology for a path.
+ */
+class TopologyIndex {
+
+	private final double[][] distances;
+
+	public TopologyIndex(Topology topology) {
+		int n = topology.size();
+		this.distances = new double[n][n];
+		for (City from : topology) {
+			for (City to : topology) {
+				distances[from.id][to.id] = from.distanceTo(to);
+			}
+		}
+	}
+
+	public double distance(City from, City to) {
+		return distances[from.id][to.id];
+	}
+}